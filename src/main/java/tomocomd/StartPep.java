@@ -1,14 +1,13 @@
 package tomocomd;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.logging.log4j.core.config.Configurator;
 import tomocomd.io.SaveDescriptorValue;
-import tomocomd.md.ComputeBatch;
-import tomocomd.md.ComputeMD;
+import tomocomd.md.DescriptorPlan;
+import tomocomd.md.DescriptorSpace;
+import tomocomd.md.StarpepEngine;
 import tomocomd.md.properties.AminoAcidPropertiesGetter;
 import tomocomd.model.Peptide;
 import tomocomd.model.PeptideContainer;
@@ -29,13 +28,13 @@ public class StartPep {
 
     PeptideContainer peptides = new PeptideContainer();
     peptides.add(peptide);
-    List<String> headings = new LinkedList<>(ComputeMD.generate()).subList(0, 1000);
+    DescriptorPlan plan = DescriptorSpace.getDefault().plan(0, 1000);
     long start = System.currentTimeMillis();
-    ComputeBatch computeBatch = new ComputeBatch(peptides.size(), headings.size());
-    computeBatch.computeInBatch(peptides, headings);
-    RealMatrix realMatrix = computeBatch.getResults();
-    computeBatch.shutdown();
+    RealMatrix realMatrix;
+    try (StarpepEngine engine = new StarpepEngine()) {
+      realMatrix = engine.compute(peptides, plan);
+    }
     logger.log(Level.INFO, "Time elapsed : {0} ms", System.currentTimeMillis() - start);
-    SaveDescriptorValue.save("output.csv", peptides, headings, realMatrix);
+    SaveDescriptorValue.save("output.csv", peptides, plan.getHeadings(), realMatrix);
   }
 }
@@ -30,7 +30,10 @@ public class StartpepException extends RuntimeException {
     INVALID_SORT_CHOQUET_OPERATOR("Invalid sort operator for Choquet aggregator"),
     INVALID_SINGLETON_METHOD("Invalid singleton method for Choquet aggregator"),
     COMPUTE_MD_EXCEPTION("Error computing Startpep MD"),
-    READ_PEPTIDE_FILE_EXCEPTION("Error reading peptide file");
+    READ_PEPTIDE_FILE_EXCEPTION("Error reading peptide file"),
+    READ_PROPERTY_FILE_EXCEPTION("Error reading amino acid property file"),
+    INVALID_MUTATION("Invalid mutation"),
+    READ_COST_PROFILE_EXCEPTION("Error reading cost profile");
     private final String message;
 
     ExceptionType(String message) {
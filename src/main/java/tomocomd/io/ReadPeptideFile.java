@@ -3,44 +3,168 @@ package tomocomd.io;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.biojava.nbio.core.exceptions.CompoundNotFoundException;
 import org.biojava.nbio.core.sequence.ProteinSequence;
+import org.biojava.nbio.core.sequence.compound.AminoAcidCompound;
+import org.biojava.nbio.core.sequence.compound.AminoAcidCompoundSet;
+import org.biojava.nbio.core.sequence.io.FastaReader;
 import org.biojava.nbio.core.sequence.io.FastaReaderHelper;
+import org.biojava.nbio.core.sequence.io.GenericFastaHeaderParser;
+import org.biojava.nbio.core.sequence.io.ProteinSequenceCreator;
 import tomocomd.StartpepException;
+import tomocomd.model.GraphTopology;
 import tomocomd.model.Peptide;
 import tomocomd.model.PeptideContainer;
 
 public class ReadPeptideFile {
+
+  /** Records parsed at a time by the streaming readers. */
+  private static final int CHUNK = 1024;
+
   protected ReadPeptideFile() {}
 
+  /**
+   * A peptide with the bonds annotated in its header ({@code topology=cyclic}, {@code ss=3-20})
+   * when {@code annotations} is set, and a linear chain otherwise.
+   */
+  private static Peptide peptide(String id, ProteinSequence record, boolean annotations)
+      throws CompoundNotFoundException {
+    String sequence = record.getSequenceAsString();
+    if (!annotations) {
+      return new Peptide(id, sequence);
+    }
+    // the whole header line, of which the id may be only a field
+    return new Peptide(
+        id, sequence, GraphTopology.fromHeader(record.getOriginalHeader(), sequence.length()));
+  }
+
   public static PeptideContainer readPeptideFile(String fileName) throws IOException {
-    Map<String, ProteinSequence> peptides =
-        FastaReaderHelper.readFastaProteinSequence(new File(fileName));
-    return peptides.entrySet().stream()
-        .map(
-            pep -> {
-              try {
-                return new Peptide(pep.getKey(), pep.getValue().getSequenceAsString());
-              } catch (CompoundNotFoundException e) {
-                throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(e);
-              }
-            })
-        .collect(Collectors.toCollection(PeptideContainer::new));
+    return readPeptideFile(fileName, false);
+  }
+
+  /**
+   * Reads a FASTA file; with {@code annotations}, the topology of each peptide is read from its
+   * header, see {@link GraphTopology#fromHeader}.
+   */
+  public static PeptideContainer readPeptideFile(String fileName, boolean annotations)
+      throws IOException {
+    return toContainer(FastaReaderHelper.readFastaProteinSequence(new File(fileName)), annotations);
   }
 
   public static PeptideContainer readPeptideFile(InputStream file) throws IOException {
-    Map<String, ProteinSequence> peptides = FastaReaderHelper.readFastaProteinSequence(file);
+    return readPeptideFile(file, false);
+  }
+
+  /** As {@link #readPeptideFile(String, boolean)}, from a stream. */
+  public static PeptideContainer readPeptideFile(InputStream file, boolean annotations)
+      throws IOException {
+    return toContainer(FastaReaderHelper.readFastaProteinSequence(file), annotations);
+  }
+
+  private static PeptideContainer toContainer(
+      Map<String, ProteinSequence> peptides, boolean annotations) {
     return peptides.entrySet().stream()
         .map(
             pep -> {
               try {
-                return new Peptide(pep.getKey(), pep.getValue().getSequenceAsString());
+                return peptide(pep.getKey(), pep.getValue(), annotations);
               } catch (CompoundNotFoundException e) {
                 throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(e);
               }
             })
         .collect(Collectors.toCollection(PeptideContainer::new));
   }
+
+  /**
+   * Peptides {@code [from, to)} of {@code readPeptideFile(fileName)}. The file is streamed and only
+   * the peptides of the range are built; the headers of the other records are kept to number the
+   * records as {@link #readPeptideFile(String)} does, where a repeated header replaces the sequence
+   * of its first record.
+   */
+  public static PeptideContainer readPeptideFile(String fileName, int from, int to)
+      throws IOException {
+    if (from < 0 || to < from) {
+      throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ")");
+    }
+    String[] headers = new String[to - from];
+    ProteinSequence[] sequences = new ProteinSequence[to - from];
+    int records =
+        scan(
+            fileName,
+            (position, header, sequence) -> {
+              if (position >= from && position < to) {
+                headers[position - from] = header;
+                sequences[position - from] = sequence;
+              }
+            });
+    if (records < to) {
+      throw new IndexOutOfBoundsException(
+          "Range [" + from + ", " + to + ") of a file of " + records + " peptides");
+    }
+    PeptideContainer peptides = new PeptideContainer();
+    for (int p = 0; p < headers.length; p++) {
+      try {
+        peptides.add(peptide(headers[p], sequences[p], false));
+      } catch (CompoundNotFoundException e) {
+        throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(e);
+      }
+    }
+    return peptides;
+  }
+
+  /**
+   * Lengths of the peptides of {@code readPeptideFile(fileName)}, in order, streaming the file
+   * without building the peptides.
+   */
+  public static int[] readPeptideLengths(String fileName) throws IOException {
+    int[][] lengths = {new int[CHUNK]};
+    int records =
+        scan(
+            fileName,
+            (position, header, sequence) -> {
+              if (position == lengths[0].length) {
+                lengths[0] = Arrays.copyOf(lengths[0], 2 * position);
+              }
+              lengths[0][position] = sequence.getLength();
+            });
+    return Arrays.copyOf(lengths[0], records);
+  }
+
+  private interface RecordConsumer {
+    void accept(int position, String header, ProteinSequence sequence);
+  }
+
+  /**
+   * Reads the records of a FASTA file {@link #CHUNK} at a time, passing each with its position in
+   * {@link #readPeptideFile(String)}, and returns the number of peptides.
+   */
+  private static int scan(String fileName, RecordConsumer consumer) throws IOException {
+    Map<String, Integer> positions = new HashMap<>();
+    try (InputStream in = Files.newInputStream(Paths.get(fileName))) {
+      FastaReader<ProteinSequence, AminoAcidCompound> reader =
+          new FastaReader<>(
+              in,
+              new GenericFastaHeaderParser<>(),
+              new ProteinSequenceCreator(AminoAcidCompoundSet.getAminoAcidCompoundSet()));
+      for (LinkedHashMap<String, ProteinSequence> chunk = reader.process(CHUNK);
+          chunk != null;
+          chunk = reader.process(CHUNK)) {
+        for (Map.Entry<String, ProteinSequence> record : chunk.entrySet()) {
+          Integer position = positions.putIfAbsent(record.getKey(), positions.size());
+          consumer.accept(
+              position == null ? positions.size() - 1 : position,
+              record.getKey(),
+              record.getValue());
+        }
+      }
+    }
+    return positions.size();
+  }
 }
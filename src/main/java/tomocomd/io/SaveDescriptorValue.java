@@ -1,29 +1,30 @@
 package tomocomd.io;
 
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.apache.commons.math3.linear.RealMatrix;
 import tomocomd.model.PeptideContainer;
 
 public class SaveDescriptorValue {
+
+  /** Encoding of descriptor files, whatever the platform default; peptide ids may be non-ASCII. */
+  public static final Charset CHARSET = StandardCharsets.UTF_8;
+
   protected SaveDescriptorValue() {}
 
   public static void save(
       String path, PeptideContainer peptides, List<String> headings, double[][] results)
       throws FileNotFoundException {
-    PrintWriter pw = new PrintWriter(path);
-    pw.print("Id");
-    for (String head : headings) {
-      pw.print("," + head);
-    }
-    pw.println();
+    PrintWriter pw = open(path);
+    printHeader(pw, headings);
     for (int i = 0; i < peptides.size(); i++) {
-
-      pw.print(peptides.get(i).getIdPeptide());
-      for (int j = 0; j < headings.size(); j++) {
-        pw.print("," + results[i][j]);
-      }
+      printRow(pw, peptides.get(i).getIdPeptide(), results[i], headings.size());
     }
     pw.close();
   }
@@ -31,19 +32,34 @@ public class SaveDescriptorValue {
   public static void save(
       String path, PeptideContainer peptides, List<String> headings, RealMatrix results)
       throws FileNotFoundException {
-    PrintWriter pw = new PrintWriter(path);
+    PrintWriter pw = open(path);
+    printHeader(pw, headings);
+    for (int i = 0; i < peptides.size(); i++) {
+      printRow(pw, peptides.get(i).getIdPeptide(), results.getRow(i), headings.size());
+    }
+    pw.close();
+  }
+
+  private static PrintWriter open(String path) throws FileNotFoundException {
+    return new PrintWriter(
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), CHARSET)));
+  }
+
+  /** Header line {@code Id,<heading>...}. */
+  public static void printHeader(PrintWriter pw, List<String> headings) {
     pw.print("Id");
     for (String head : headings) {
       pw.print("," + head);
     }
     pw.println();
-    for (int i = 0; i < peptides.size(); i++) {
+  }
 
-      pw.print(peptides.get(i).getIdPeptide());
-      for (int j = 0; j < headings.size(); j++) {
-        pw.print("," + results.getEntry(i, j));
-      }
+  /** Line of a peptide: its id and the first {@code columns} values of its row. */
+  public static void printRow(PrintWriter pw, String id, double[] row, int columns) {
+    pw.print(id);
+    for (int j = 0; j < columns; j++) {
+      pw.print("," + row[j]);
     }
-    pw.close();
+    pw.println();
   }
 }
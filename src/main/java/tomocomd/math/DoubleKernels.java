@@ -0,0 +1,57 @@
+package tomocomd.math;
+
+import java.util.List;
+
+/**
+ * Arithmetic loops over {@code double[]} shared by the aggregators and classic operators. {@link
+ * #get()} returns the implementation chosen for the running JVM: the scalar one, or, when the
+ * system property {@code starpep.simd=true} is set and the jar runs on JDK 21+ with {@code
+ * --add-modules jdk.incubator.vector}, one built on the JDK Vector API.
+ *
+ * <p>Element-wise kernels give the same bits in every implementation. The reduction kernels do not:
+ * the scalar implementation rounds each product and adds in index order, while the vector one fuses
+ * each product into its lane's partial sum ({@code fma}) and adds the lanes at the end, so N1, N2
+ * and the default GOWAWA differ in the last bits between them. Results are therefore only
+ * reproducible between runs that use the same implementation; see {@link #name()}.
+ */
+public interface DoubleKernels {
+
+  /**
+   * {@code sum_i a[i] * b[i]} over the first {@code length} elements; the reduction order, and
+   * whether each product is rounded or fused into the sum, are implementation-defined.
+   */
+  double dot(double[] a, double[] b, int length);
+
+  /** {@code sum_i a[i] * a[i]}; the reduction order is implementation-defined. */
+  double sumOfSquares(double[] a);
+
+  /** {@code sum_i |a[i]|}; the reduction order is implementation-defined. */
+  double sumOfAbs(double[] a);
+
+  /**
+   * Terms of the lagged operators of a linear chain: for every {@code i < a.length - k}, {@code
+   * products[i] = a[i] * a[i + k]}, {@code quotients[i] = products[i] / k} and {@code sums[i] =
+   * a[i] + a[i + k]}.
+   */
+  void lagTerms(double[] a, int k, double[] products, double[] quotients, double[] sums);
+
+  static DoubleKernels get() {
+    return Kernels.SELECTED;
+  }
+
+  /** Class name of the selected implementation, recorded with results that depend on it. */
+  static String name() {
+    return Kernels.SELECTED.getClass().getName();
+  }
+
+  /**
+   * Options starting another JVM, e.g. a worker process, with the kernels of this one: the {@code
+   * starpep.simd} property, and the incubator module when the vector kernels are selected.
+   */
+  static List<String> jvmOptions() {
+    if (Kernels.SELECTED instanceof ScalarKernels) {
+      return List.of("-D" + Kernels.PROPERTY + "=false");
+    }
+    return List.of("--add-modules", "jdk.incubator.vector", "-D" + Kernels.PROPERTY + "=true");
+  }
+}
@@ -0,0 +1,38 @@
+package tomocomd.math;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Chooses the {@link DoubleKernels} implementation once per JVM. The vector kernels are opt-in,
+ * with {@code -Dstarpep.simd=true}: {@code VectorKernels} is only packaged under {@code
+ * META-INF/versions/21} of the multi-release jar and needs the incubator module at runtime, and
+ * when any of that is missing the scalar kernels are used.
+ */
+final class Kernels {
+
+  static final String PROPERTY = "starpep.simd";
+
+  private static final Logger logger = Logger.getLogger(Kernels.class.getName());
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_KERNELS = "tomocomd.math.VectorKernels";
+
+  static final DoubleKernels SELECTED = select(System.getProperty(PROPERTY, "false"));
+
+  private Kernels() {}
+
+  static DoubleKernels select(String simd) {
+    if (!Boolean.parseBoolean(simd) || !ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+      return new ScalarKernels();
+    }
+    try {
+      DoubleKernels kernels =
+          (DoubleKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+      logger.log(Level.FINE, "Using {0}", VECTOR_KERNELS);
+      return kernels;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      logger.log(Level.FINE, "Vector kernels unavailable, using scalar kernels", e);
+      return new ScalarKernels();
+    }
+  }
+}
@@ -2,9 +2,63 @@ package tomocomd.math;
 
 public class MathTomocomd {
 
+  private static final double LOG10_2 = java.lang.Math.log10(2.0);
+
   protected MathTomocomd() {}
 
   public static double log2(double x) {
-    return java.lang.Math.log10(x) / java.lang.Math.log10(2.0);
+    return java.lang.Math.log10(x) / LOG10_2;
+  }
+
+  /**
+   * Whether {@code s} is a plain decimal number ({@code -0.75}, {@code 1}, {@code 2.5E-3}) that
+   * {@link Double#parseDouble(String)} accepts, checked without throwing.
+   */
+  public static boolean isDecimal(String s) {
+    if (s == null) {
+      return false;
+    }
+    int i = skipSign(s, 0);
+    int digits = countDigits(s, i);
+    i += digits;
+    if (i < s.length() && s.charAt(i) == '.') {
+      int fraction = countDigits(s, i + 1);
+      digits += fraction;
+      i += 1 + fraction;
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (i < s.length() && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+      i = skipSign(s, i + 1);
+      int exponent = countDigits(s, i);
+      if (exponent == 0) {
+        return false;
+      }
+      i += exponent;
+    }
+    return i == s.length();
+  }
+
+  /** Whether {@code s} is an integer that {@link Integer#parseInt(String)} accepts. */
+  public static boolean isInteger(String s) {
+    if (s == null) {
+      return false;
+    }
+    int i = skipSign(s, 0);
+    int digits = countDigits(s, i);
+    return digits > 0 && digits <= 9 && i + digits == s.length();
+  }
+
+  private static int skipSign(String s, int i) {
+    return i < s.length() && (s.charAt(i) == '-' || s.charAt(i) == '+') ? i + 1 : i;
+  }
+
+  private static int countDigits(String s, int from) {
+    int i = from;
+    while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+      i++;
+    }
+    return i - from;
   }
 }
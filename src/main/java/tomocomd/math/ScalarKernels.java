@@ -0,0 +1,44 @@
+package tomocomd.math;
+
+/** Plain Java 11 loops, the reference for every other {@link DoubleKernels} implementation. */
+final class ScalarKernels implements DoubleKernels {
+
+  @Override
+  public double dot(double[] a, double[] b, int length) {
+    double sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public double sumOfSquares(double[] a) {
+    double sum = 0;
+    for (double value : a) {
+      sum += value * value;
+    }
+    return sum;
+  }
+
+  @Override
+  public double sumOfAbs(double[] a) {
+    double sum = 0;
+    for (double value : a) {
+      sum += Math.abs(value);
+    }
+    return sum;
+  }
+
+  @Override
+  public void lagTerms(double[] a, int k, double[] products, double[] quotients, double[] sums) {
+    for (int i = 0, n = a.length - k; i < n; i++) {
+      double ai = a[i];
+      double aj = a[i + k];
+      double product = ai * aj;
+      products[i] = product;
+      quotients[i] = product / k;
+      sums[i] = ai + aj;
+    }
+  }
+}
@@ -0,0 +1,288 @@
+package tomocomd.md;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.math3.linear.RealMatrix;
+import tomocomd.md.properties.AminoAcidPropertyCatalog;
+import tomocomd.md.properties.LoviCache;
+import tomocomd.model.Peptide;
+
+/**
+ * One computation of a descriptor plan for a list of peptides, writing into the rows of a result
+ * matrix. The peptide x LOVI node space is split recursively into tiles predicted by the {@link
+ * CostModel} to take at most {@link #TILE_NANOS}: on a work-stealing pool only the tiles being
+ * split or run exist at any time, and idle workers steal the halves left by busy ones. For other
+ * executors the leaf tiles are listed up front. A leaf tile evaluates its nodes peptide by peptide.
+ *
+ * <p>Peptides are scheduled longest processing time first: tiles run over the peptides sorted by
+ * their predicted row time, largest first, and rows and nodes are split at the middle of their cost
+ * rather than of their count, so tiles of long peptides or costly families are smaller. The time of
+ * a cell is taken as its row time times the share of its node in a row of median length. The
+ * expensive peptides start at once and cheap tiles fill the idle workers at the end, instead of a
+ * few long peptides at the end of the input running alone. Rows are still written at their input
+ * index.
+ *
+ * <p>Tiles check the {@link CancellationToken} before running, and a failing tile stops the tiles
+ * not yet started. Completed tiles add their cells to the progress, which is handed to the {@link
+ * ProgressListener} at most once per report interval.
+ */
+final class BatchJob {
+
+  /**
+   * Predicted time of a leaf tile: enough to amortize a task, little enough to balance the load.
+   */
+  static final double TILE_NANOS = 100_000;
+
+  private final Peptide[] peptides;
+  private final DescriptorPlan plan;
+  private final List<DescriptorPlan.LoviNode> nodes;
+  private final AminoAcidPropertyCatalog catalog;
+  private final double[][] rows;
+  private final CancellationToken token;
+  private final ProgressListener listener;
+  private final long reportInterval;
+  private final int[] order; // input row of each scheduled position
+  private final double[] costPrefix; // time of the scheduled rows before each one
+  private final double[] sharePrefix; // share of a row of the nodes before each one
+  private final int[] nodeColumns;
+  private final AtomicIntegerArray nodesDone;
+  private final LongAdder cellsDone = new LongAdder();
+  private final AtomicLong nextReport = new AtomicLong();
+  private long startNanos;
+  private volatile RuntimeException failure;
+
+  BatchJob(
+      List<Peptide> peptides,
+      DescriptorPlan plan,
+      AminoAcidPropertyCatalog catalog,
+      double[][] rows,
+      CancellationToken token,
+      ProgressListener listener,
+      long reportInterval,
+      CostModel costModel) {
+    // an array, as peptide containers are linked lists
+    this.peptides = peptides.toArray(new Peptide[0]);
+    this.plan = plan;
+    this.nodes = plan.getLoviNodes();
+    this.catalog = catalog;
+    this.rows = rows;
+    this.token = token;
+    this.listener = listener;
+    this.reportInterval = reportInterval;
+    this.nodeColumns = new int[nodes.size()];
+    for (int n = 0; n < nodes.size(); n++) {
+      for (DescriptorPlan.ClassicNode classic : nodes.get(n).getClassics()) {
+        nodeColumns[n] += classic.getColumnCount();
+      }
+    }
+    this.nodesDone = new AtomicIntegerArray(this.peptides.length);
+
+    int size = this.peptides.length;
+    double[] costs = new double[size];
+    double[] bucketCosts = new double[CostModel.buckets()];
+    Arrays.fill(bucketCosts, Double.NaN);
+    Integer[] byCost = new Integer[size];
+    for (int row = 0; row < size; row++) {
+      int bucket = CostModel.bucket(this.peptides[row].getLength());
+      if (Double.isNaN(bucketCosts[bucket])) {
+        bucketCosts[bucket] = costModel.rowCost(plan, CostModel.bucketBound(bucket));
+      }
+      costs[row] = bucketCosts[bucket];
+      byCost[row] = row;
+    }
+    // stable: peptides of the same cost keep their input order
+    Arrays.sort(byCost, (a, b) -> Double.compare(costs[b], costs[a]));
+    this.order = new int[size];
+    this.costPrefix = new double[size + 1];
+    for (int p = 0; p < size; p++) {
+      order[p] = byCost[p];
+      costPrefix[p + 1] = costPrefix[p] + costs[order[p]];
+    }
+
+    int median = size == 0 ? 0 : this.peptides[order[size / 2]].getLength();
+    double[] nodeCosts = new double[nodes.size()];
+    double total = 0;
+    for (int n = 0; n < nodes.size(); n++) {
+      nodeCosts[n] = costModel.nodeCost(plan, nodes.get(n), median);
+      total += nodeCosts[n];
+    }
+    this.sharePrefix = new double[nodes.size() + 1];
+    for (int n = 0; n < nodes.size(); n++) {
+      double share = total > 0 ? nodeCosts[n] / total : 1.0 / nodes.size();
+      sharePrefix[n + 1] = sharePrefix[n] + share;
+    }
+  }
+
+  /** Starts the clock of the progress reports. */
+  void start() {
+    startNanos = System.nanoTime();
+    nextReport.set(startNanos + reportInterval);
+  }
+
+  /** Root tile, to run on a fork/join pool. */
+  RecursiveAction root() {
+    return new Tile(0, peptides.length, 0, nodes.size());
+  }
+
+  /** Leaf tiles, to run on any executor. */
+  List<Callable<Void>> leaves() {
+    List<Callable<Void>> leaves = new ArrayList<>();
+    split(0, peptides.length, 0, nodes.size(), leaves);
+    return leaves;
+  }
+
+  CancellationToken getToken() {
+    return token;
+  }
+
+  boolean isCancelled() {
+    return token.isCancelled();
+  }
+
+  /** First failure of a tile, {@code null} if none failed. */
+  RuntimeException getFailure() {
+    return failure;
+  }
+
+  private boolean isStopped() {
+    return failure != null || token.isCancelled();
+  }
+
+  BatchProgress progress() {
+    return new BatchProgress(
+        cellsDone.sum(),
+        (long) peptides.length * plan.size(),
+        plan.size(),
+        System.nanoTime() - startNanos);
+  }
+
+  /** Reports the progress to the listener, if any. */
+  void report() {
+    if (listener != null) {
+      listener.onProgress(progress());
+    }
+  }
+
+  /** Result of the job once it has ended. */
+  BatchResult result(RealMatrix results) {
+    return new BatchResult(results, isCancelled(), nodesDone, nodes.size(), progress());
+  }
+
+  /** Whether a tile is run rather than split: a single node evaluation or a short enough tile. */
+  private boolean isLeaf(int fromRow, int toRow, int fromNode, int toNode) {
+    return (long) (toRow - fromRow) * (toNode - fromNode) <= 1
+        || (costPrefix[toRow] - costPrefix[fromRow]) * (sharePrefix[toNode] - sharePrefix[fromNode])
+            <= TILE_NANOS;
+  }
+
+  /** Index in {@code (from, to)} splitting a range of a prefix sum into halves of equal cost. */
+  private static int middle(double[] prefix, int from, int to) {
+    double half = (prefix[from] + prefix[to]) / 2;
+    int lo = from + 1;
+    int hi = to - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (prefix[mid] < half) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private void split(
+      int fromRow, int toRow, int fromNode, int toNode, List<Callable<Void>> leaves) {
+    int height = toRow - fromRow;
+    int columns = toNode - fromNode;
+    if (isLeaf(fromRow, toRow, fromNode, toNode)) {
+      leaves.add(
+          () -> {
+            if (!isStopped()) {
+              computeLeaf(fromRow, toRow, fromNode, toNode);
+            }
+            return null;
+          });
+    } else if (height >= columns) {
+      int middle = middle(costPrefix, fromRow, toRow);
+      split(fromRow, middle, fromNode, toNode, leaves);
+      split(middle, toRow, fromNode, toNode, leaves);
+    } else {
+      int middle = middle(sharePrefix, fromNode, toNode);
+      split(fromRow, toRow, fromNode, middle, leaves);
+      split(fromRow, toRow, middle, toNode, leaves);
+    }
+  }
+
+  private void computeLeaf(int fromRow, int toRow, int fromNode, int toNode) {
+    int columns = 0;
+    for (int n = fromNode; n < toNode; n++) {
+      columns += nodeColumns[n];
+    }
+    try {
+      for (int p = fromRow; p < toRow; p++) {
+        int row = order[p];
+        LoviCache lovis = new LoviCache(peptides[row], catalog);
+        ComputeMD.computeLoviNodes(lovis, plan, nodes.subList(fromNode, toNode), rows[row]);
+        nodesDone.addAndGet(row, toNode - fromNode);
+        cellsDone.add(columns);
+      }
+    } catch (RuntimeException e) {
+      if (failure == null) {
+        failure = e;
+      }
+      throw e;
+    }
+    long now = System.nanoTime();
+    long next = nextReport.get();
+    if (listener != null && now >= next && nextReport.compareAndSet(next, now + reportInterval)) {
+      report();
+    }
+  }
+
+  /**
+   * Scheduled peptides {@code [fromRow, toRow)} x LOVI nodes {@code [fromNode, toNode)} of the
+   * plan.
+   */
+  private final class Tile extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int fromRow;
+    private final int toRow;
+    private final int fromNode;
+    private final int toNode;
+
+    private Tile(int fromRow, int toRow, int fromNode, int toNode) {
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.fromNode = fromNode;
+      this.toNode = toNode;
+    }
+
+    @Override
+    protected void compute() {
+      if (isStopped()) {
+        return;
+      }
+      int height = toRow - fromRow;
+      int columns = toNode - fromNode;
+      if (isLeaf(fromRow, toRow, fromNode, toNode)) {
+        computeLeaf(fromRow, toRow, fromNode, toNode);
+      } else if (height >= columns) {
+        int middle = middle(costPrefix, fromRow, toRow);
+        invokeAll(
+            new Tile(fromRow, middle, fromNode, toNode), new Tile(middle, toRow, fromNode, toNode));
+      } else {
+        int middle = middle(sharePrefix, fromNode, toNode);
+        invokeAll(
+            new Tile(fromRow, toRow, fromNode, middle), new Tile(fromRow, toRow, middle, toNode));
+      }
+    }
+  }
+}
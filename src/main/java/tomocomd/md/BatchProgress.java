@@ -0,0 +1,64 @@
+package tomocomd.md;
+
+/** Snapshot of a batch job: cells (peptide x descriptor values) done and throughput so far. */
+public final class BatchProgress {
+
+  private final long cellsDone;
+  private final long totalCells;
+  private final int descriptors;
+  private final long elapsedNanos;
+
+  BatchProgress(long cellsDone, long totalCells, int descriptors, long elapsedNanos) {
+    this.cellsDone = cellsDone;
+    this.totalCells = totalCells;
+    this.descriptors = descriptors;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getCellsDone() {
+    return cellsDone;
+  }
+
+  public long getTotalCells() {
+    return totalCells;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /** Fraction of the cells done, {@code 1} for an empty job. */
+  public double getFraction() {
+    return totalCells == 0 ? 1 : (double) cellsDone / totalCells;
+  }
+
+  public boolean isDone() {
+    return cellsDone == totalCells;
+  }
+
+  /** Descriptor values computed per second. */
+  public double getDescriptorsPerSecond() {
+    return elapsedNanos == 0 ? 0 : cellsDone * 1e9 / elapsedNanos;
+  }
+
+  /** Peptides computed per second, counting a peptide per {@code descriptors} cells. */
+  public double getPeptidesPerSecond() {
+    return descriptors == 0 ? 0 : getDescriptorsPerSecond() / descriptors;
+  }
+
+  /** Seconds left at the throughput so far, {@code NaN} until some cells are done. */
+  public double getEtaSeconds() {
+    if (isDone()) {
+      return 0;
+    }
+    double rate = getDescriptorsPerSecond();
+    return rate == 0 ? Double.NaN : (totalCells - cellsDone) / rate;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d/%d cells, %.1f peptides/s, %.1f descriptors/s, ETA %.1f s",
+        cellsDone, totalCells, getPeptidesPerSecond(), getDescriptorsPerSecond(), getEtaSeconds());
+  }
+}
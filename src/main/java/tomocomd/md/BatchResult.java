@@ -0,0 +1,58 @@
+package tomocomd.md;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * Matrix of a batch job, complete or cut short by its {@link CancellationToken}. In a cancelled job
+ * only the rows reported by {@link #isRowComplete(int)} hold all their values; the cells of skipped
+ * tiles are left at {@code 0}.
+ */
+public final class BatchResult {
+
+  private final RealMatrix results;
+  private final boolean cancelled;
+  private final AtomicIntegerArray nodesDone;
+  private final int nodes;
+  private final BatchProgress progress;
+
+  BatchResult(
+      RealMatrix results,
+      boolean cancelled,
+      AtomicIntegerArray nodesDone,
+      int nodes,
+      BatchProgress progress) {
+    this.results = results;
+    this.cancelled = cancelled;
+    this.nodesDone = nodesDone;
+    this.nodes = nodes;
+    this.progress = progress;
+  }
+
+  public RealMatrix getResults() {
+    return results;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public boolean isRowComplete(int row) {
+    return nodesDone.get(row) == nodes;
+  }
+
+  public int getCompletedRows() {
+    int completed = 0;
+    for (int row = 0; row < nodesDone.length(); row++) {
+      if (isRowComplete(row)) {
+        completed++;
+      }
+    }
+    return completed;
+  }
+
+  /** Progress when the job ended. */
+  public BatchProgress getProgress() {
+    return progress;
+  }
+}
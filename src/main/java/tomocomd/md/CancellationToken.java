@@ -0,0 +1,18 @@
+package tomocomd.md;
+
+/**
+ * Cooperative cancellation of batch jobs. Jobs check the token before each tile, so work stops
+ * within one tile of {@link #cancel()}; a token may be shared by several jobs to stop them all.
+ */
+public final class CancellationToken {
+
+  private volatile boolean cancelled;
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+}
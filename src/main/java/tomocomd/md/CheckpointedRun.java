@@ -0,0 +1,164 @@
+package tomocomd.md;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import tomocomd.StartpepException;
+import tomocomd.io.ReadPeptideFile;
+import tomocomd.math.DoubleKernels;
+import tomocomd.model.Peptide;
+
+/**
+ * Journaled computation of a sequence file. Rows are computed in blocks of {@link #setBlockSize}
+ * peptides; each finished block is written to the journal directory and recorded in a manifest with
+ * the SHA-256 of the sequence file, the SHA-256 of the plan headings, the {@link DoubleKernels}
+ * implementation and the completed ranges. A run restarted with the same inputs, kernels and block
+ * size computes only the blocks missing from the manifest, and a journal of other inputs or kernels
+ * is discarded.
+ *
+ * <p>The output is the header followed by the block files in order, so it is byte-identical to
+ * {@link tomocomd.io.SaveDescriptorValue#save} of the whole matrix, however many times the run was
+ * interrupted. The journal is kept after the output is written and may then be deleted.
+ */
+public final class CheckpointedRun {
+
+  private static final Logger logger = Logger.getLogger(CheckpointedRun.class.getName());
+
+  static final String MANIFEST = "manifest.properties";
+
+  private final String seqFilePath;
+  private final DescriptorPlan plan;
+  private final Path journalDir;
+  private int blockSize = 512;
+
+  public CheckpointedRun(String seqFilePath, DescriptorPlan plan, Path journalDir) {
+    this.seqFilePath = seqFilePath;
+    this.plan = plan;
+    this.journalDir = journalDir;
+  }
+
+  /** Peptides per journaled block; a journal of another block size is discarded. */
+  public void setBlockSize(int blockSize) {
+    if (blockSize < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Invalid block size " + blockSize);
+    }
+    this.blockSize = blockSize;
+  }
+
+  public void run(Path output) throws IOException {
+    try (StarpepEngine engine = new StarpepEngine()) {
+      run(engine, output);
+    }
+  }
+
+  /** Computes the blocks missing from the journal on {@code engine}, then writes the output. */
+  public void run(StarpepEngine engine, Path output) throws IOException {
+    Files.createDirectories(journalDir);
+    // an array list, as peptide containers are linked lists
+    List<Peptide> peptides = new ArrayList<>(ReadPeptideFile.readPeptideFile(seqFilePath));
+    Properties manifest = new Properties();
+    manifest.setProperty("inputHash", Digests.of(Paths.get(seqFilePath)));
+    manifest.setProperty("planHash", Digests.of(plan.getHeadings()));
+    manifest.setProperty("kernels", DoubleKernels.name());
+    manifest.setProperty("blockSize", Integer.toString(blockSize));
+    manifest.setProperty("peptides", Integer.toString(peptides.size()));
+    TreeSet<Integer> completed = resume(manifest);
+
+    List<Path> blocks = new ArrayList<>();
+    for (int from = 0; from < peptides.size(); from += blockSize) {
+      int to = Math.min(peptides.size(), from + blockSize);
+      Path block = journalDir.resolve(blockName(from, to));
+      blocks.add(block);
+      if (completed.contains(from)) {
+        continue;
+      }
+      List<Peptide> rows = peptides.subList(from, to);
+      RowFiles.write(block, rows, engine.compute(rows, plan), plan.size());
+      completed.add(from);
+      writeManifest(manifest, completed);
+    }
+    RowFiles.merge(plan.getHeadings(), blocks, output);
+  }
+
+  /**
+   * Starting blocks of the ranges a previous run completed with the same inputs, whose files are
+   * still there. Otherwise the journal is cleared.
+   */
+  private TreeSet<Integer> resume(Properties manifest) throws IOException {
+    TreeSet<Integer> completed = new TreeSet<>();
+    Path file = journalDir.resolve(MANIFEST);
+    if (Files.exists(file)) {
+      Properties previous = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        previous.load(in);
+      }
+      if (sameRun(manifest, previous)) {
+        int peptides = Integer.parseInt(manifest.getProperty("peptides"));
+        for (String range : previous.getProperty("completed", "").split(",")) {
+          if (range.isEmpty()) {
+            continue;
+          }
+          int from = Integer.parseInt(range.substring(0, range.indexOf('-')));
+          int to = Math.min(peptides, from + blockSize);
+          if (Files.exists(journalDir.resolve(blockName(from, to)))) {
+            completed.add(from);
+          }
+        }
+        logger.log(Level.INFO, "Resuming with {0} completed blocks", completed.size());
+        return completed;
+      }
+      logger.log(Level.INFO, "Journal of other inputs, starting over");
+    }
+    try (DirectoryStream<Path> stale = Files.newDirectoryStream(journalDir, "block-*.csv")) {
+      for (Path block : stale) {
+        Files.delete(block);
+      }
+    }
+    return completed;
+  }
+
+  private static boolean sameRun(Properties manifest, Properties previous) {
+    for (String key : new String[] {"inputHash", "planHash", "kernels", "blockSize", "peptides"}) {
+      if (!manifest.getProperty(key).equals(previous.getProperty(key))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Records the completed ranges, replacing the manifest in one move. */
+  private void writeManifest(Properties manifest, TreeSet<Integer> completed) throws IOException {
+    int peptides = Integer.parseInt(manifest.getProperty("peptides"));
+    StringBuilder ranges = new StringBuilder();
+    for (int from : completed) {
+      if (ranges.length() > 0) {
+        ranges.append(',');
+      }
+      ranges.append(from).append('-').append(Math.min(peptides, from + blockSize));
+    }
+    manifest.setProperty("completed", ranges.toString());
+
+    Path file = journalDir.resolve(MANIFEST);
+    Path partial = RowFiles.partial(file);
+    try (OutputStream out = Files.newOutputStream(partial)) {
+      manifest.store(out, "Startpep run journal");
+    }
+    Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static String blockName(int from, int to) {
+    return "block-" + from + "-" + to + ".csv";
+  }
+}
@@ -1,131 +1,94 @@
 package tomocomd.md;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CancellationException;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 import tomocomd.StartpepException;
 import tomocomd.model.Peptide;
 
+/**
+ * Computes a descriptor plan for a list of peptides into a result matrix of fixed size. Runs on the
+ * {@link StarpepEngine} it is given, or on one of its own that the first computation or {@link
+ * #shutdown()} closes; long-running callers should keep an engine instead, so threads and caches
+ * outlive one batch.
+ */
 public class ComputeBatch {
 
-  private static final Logger logger = Logger.getLogger(ComputeBatch.class.getName());
-
-  private final ExecutorService executorService;
-  private final List<Future<?>> futures;
-  private final RealMatrix results;
-  private final int numberOfTasks;
+  private final StarpepEngine engine;
+  private final boolean ownsEngine;
+  private final Array2DRowRealMatrix results;
+  private volatile CancellationToken token = new CancellationToken();
+  private ProgressListener listener;
 
   public ComputeBatch(int peptidesNumber, int headingsSize) {
-    this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-    this.futures = new ArrayList<>();
+    this(new StarpepEngine(), true, peptidesNumber, headingsSize);
+  }
+
+  /** Batch running on {@code engine}, which stays open. */
+  public ComputeBatch(StarpepEngine engine, int peptidesNumber, int headingsSize) {
+    this(engine, false, peptidesNumber, headingsSize);
+  }
+
+  private ComputeBatch(
+      StarpepEngine engine, boolean ownsEngine, int peptidesNumber, int headingsSize) {
+    this.engine = engine;
+    this.ownsEngine = ownsEngine;
     this.results = new Array2DRowRealMatrix(peptidesNumber, headingsSize);
-    this.numberOfTasks = peptidesNumber * headingsSize;
   }
 
   public void computeInBatch(List<Peptide> peptides, List<String> headings) {
-    List<Callable<Void>> tasks = getCallables(peptides, headings);
+    computeInBatch(peptides, engine.plan(headings));
+  }
 
-    int[] batchSizes = getBatchSize();
-    int startPos = 0;
-    List<Future<Void>> futuresBatch = new ArrayList<>();
-    try {
-      for (int size : batchSizes) {
-        int lastPos = Math.min(startPos + size, numberOfTasks);
-        List<Callable<Void>> batch = tasks.subList(startPos, lastPos);
-        futuresBatch = new ArrayList<>();
+  /** Computes the descriptors with ordinals in {@code [from, to)} of a descriptor space. */
+  public void computeInBatch(List<Peptide> peptides, DescriptorSpace space, int from, int to) {
+    computeInBatch(peptides, space.plan(from, to));
+  }
 
-        futuresBatch = executorService.invokeAll(batch);
-        futures.addAll(futuresBatch);
-        for (Future<Void> future : futuresBatch) {
-          future.get();
-        }
-        startPos += size;
-      }
-    } catch (Exception e) {
-      cancelAll(futuresBatch);
-      Thread.currentThread().interrupt();
+  public void computeInBatch(List<Peptide> peptides, DescriptorPlan plan) {
+    CancellationToken current = token;
+    BatchJob job = engine.newJob(peptides, plan, results.getDataRef(), current, listener);
+    try {
+      engine.run(job);
+      job.report();
+    } catch (StartpepException e) {
+      throw e;
+    } catch (RuntimeException e) {
       throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
     } finally {
-      try {
-        shutdown();
-      } catch (InterruptedException e) {
-        throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
-      }
-    }
-  }
-
-  private List<Callable<Void>> getCallables(List<Peptide> peptides, List<String> headings) {
-    List<Callable<Void>> tasks = new ArrayList<>();
-
-    for (int i = 0; i < peptides.size(); i++) {
-      for (int j = 0; j < headings.size(); j++) {
-        int finalJ = j;
-        int finalI = i;
-        tasks.add(
-            () -> {
-              results.setEntry(
-                  finalI, finalJ, ComputeMD.compute(peptides.get(finalI), headings.get(finalJ)));
-              return null;
-            });
-      }
+      // a cancellation stops this computation only, the next one gets a fresh token
+      token = new CancellationToken();
+      shutdown();
     }
-    return tasks;
-  }
-
-  public int[] getBatchSize() {
-    int numP = Runtime.getRuntime().availableProcessors();
-    int first = Math.max(numP, numberOfTasks / (2 * numP));
-
-    int numberBatch = (int) Math.ceil((2.0 * numberOfTasks) / (first + numP));
-
-    int scheduledNumTask = 0;
-    double d = (first - numP) / (numberBatch - 1.0);
-    int[] batchSizes = new int[numberBatch];
-    for (int i = 0; i < numberBatch; i++) {
-      int current = first - (int) (i * d);
-      batchSizes[i] =
-          scheduledNumTask + current > numberOfTasks ? numberOfTasks - scheduledNumTask : current;
-      scheduledNumTask += batchSizes[i];
+    if (job.isCancelled()) {
+      throw new CancellationException("Batch cancelled");
     }
-    return batchSizes;
   }
 
   public RealMatrix getResults() throws StartpepException {
-    for (Future<?> future : futures) {
-      try {
-        future.get();
-      } catch (InterruptedException | ExecutionException e) {
-        cancelAll();
-        Thread.currentThread().interrupt();
-        throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
-      }
-    }
     return results;
   }
 
-  public void shutdown() throws InterruptedException {
-    executorService.shutdown();
-    if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-      executorService.shutdownNow();
-      if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-        logger.log(Level.SEVERE, "Executor did not terminate in the expected time.");
-      }
+  /** Closes the engine this batch created; an engine handed to the batch stays open. */
+  public void shutdown() {
+    if (ownsEngine) {
+      engine.close();
     }
   }
 
-  public void cancelAll() {
-    for (Future<?> future : futures) {
-      future.cancel(true);
-    }
+  /** Listener of the progress of the next computations, {@code null} for none. */
+  public void setProgressListener(ProgressListener listener) {
+    this.listener = listener;
   }
 
-  public void cancelAll(List<Future<Void>> futures) {
-    for (Future<Void> future : futures) {
-      future.cancel(true);
-    }
+  /**
+   * Stops the running computation, or the next one if none is running: tiles not yet started are
+   * skipped, and {@code computeInBatch} throws a {@link CancellationException} once the running
+   * ones are done, leaving the rows computed so far in {@link #getResults()}. Later computations
+   * run in full.
+   */
+  public void cancelAll() {
+    token.cancel();
   }
 }
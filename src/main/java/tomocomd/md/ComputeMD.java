@@ -1,15 +1,15 @@
 package tomocomd.md;
 
-import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.biojava.nbio.core.exceptions.CompoundNotFoundException;
 import tomocomd.StartpepException;
 import tomocomd.md.aggregation.*;
-import tomocomd.md.properties.AminoAcidPropertiesGetter;
+import tomocomd.md.properties.AminoAcidPropertyCatalog;
+import tomocomd.md.properties.LoviCache;
 import tomocomd.model.*;
 
 public class ComputeMD {
@@ -21,84 +21,241 @@ public class ComputeMD {
   }
 
   public static double[] computeInBatch(Peptide peptide, Set<String> headings) {
-    return headings.stream()
-        .map(h -> compute(peptide, h))
-        .mapToDouble(Double::doubleValue)
-        .toArray();
+    return computeInBatch(peptide, DescriptorPlan.compile(headings));
   }
 
-  public static double[][] computeInBatch(PeptideContainer peptides, List<String> headings)
-      throws InterruptedException {
-    int availableProcessors = Runtime.getRuntime().availableProcessors();
-    ExecutorService executorService =
-        java.util.concurrent.Executors.newFixedThreadPool(availableProcessors);
-
-    List<Callable<Object>> tasks = new ArrayList<>();
-    double[][] results = new double[peptides.size()][headings.size()];
-
-    for (int i = 0; i < peptides.size(); i++) {
-      for (int j = 0; j < headings.size(); j++) {
-        int finalI = i;
-        int finalJ = j;
-        tasks.add(
-            () -> results[finalI][finalJ] = compute(peptides.get(finalI), headings.get(finalJ)));
+  public static double[] computeInBatch(Peptide peptide, DescriptorPlan plan) {
+    LoviCache lovis = new LoviCache(peptide);
+    double[] row = new double[plan.size()];
+    computeLoviNodes(lovis, plan, plan.getLoviNodes(), row);
+    return row;
+  }
+
+  /**
+   * Evaluates several nodes of the plan for one peptide, as {@link #computeLoviNode} of each. On a
+   * linear chain long enough for ES to go through an FFT, the ES vectors of all the nodes are
+   * computed in one {@link ElectroTopologicalState#computeAll} call, which transforms the distance
+   * kernel once instead of once per node; the vectors are the same.
+   */
+  static void computeLoviNodes(
+      LoviCache lovisCache,
+      DescriptorPlan plan,
+      List<DescriptorPlan.LoviNode> nodes,
+      double[] row) {
+    Peptide peptide = lovisCache.getPeptide();
+    double[][] states = new double[nodes.size()][];
+    if (peptide.getTopology() instanceof LinearTopology
+        && peptide.getLength() >= ElectroTopologicalState.FFT_THRESHOLD) {
+      List<Integer> esNodes = new ArrayList<>();
+      for (int n = 0; n < nodes.size(); n++) {
+        if (hasClassic(nodes.get(n), CLASSIC_OPERATORS.ES)) {
+          esNodes.add(n);
+        }
+      }
+      if (esNodes.size() > 1) {
+        double[][] lovis = new double[esNodes.size()][];
+        for (int e = 0; e < lovis.length; e++) {
+          DescriptorPlan.LoviNode node = nodes.get(esNodes.get(e));
+          lovis[e] = lovisCache.get(node.getProperty(), node.getGroup());
+        }
+        double[][] computed = ElectroTopologicalState.computeAll(lovis, peptide.getTopology());
+        for (int e = 0; e < computed.length; e++) {
+          states[esNodes.get(e)] = computed[e];
+        }
+      }
+    }
+    for (int n = 0; n < nodes.size(); n++) {
+      DescriptorPlan.LoviNode node = nodes.get(n);
+      double[] lovis = lovisCache.get(node.getProperty(), node.getGroup());
+      LagKernel lagged = computeLagKernel(lovis, peptide.getTopology(), node);
+      computeLoviNode(lovis, lagged, states[n], peptide, plan, node, row);
+    }
+  }
+
+  private static boolean hasClassic(DescriptorPlan.LoviNode node, CLASSIC_OPERATORS operator) {
+    for (DescriptorPlan.ClassicNode classic : node.getClassics()) {
+      if (classic.getClassic() == operator) {
+        return true;
       }
     }
+    return false;
+  }
 
-    executorService.invokeAll(tasks);
-    executorService.shutdown();
-    return results;
+  /**
+   * Evaluates every column fed by a (group, property) node of the plan, computing the LOVI vector
+   * and each classic vector derived from it once, and writes them into {@code row}.
+   */
+  public static void computeLoviNode(
+      LoviCache lovisCache, DescriptorPlan plan, DescriptorPlan.LoviNode node, double[] row) {
+    double[] lovis = lovisCache.get(node.getProperty(), node.getGroup());
+    LagKernel lagged = computeLagKernel(lovis, lovisCache.getPeptide().getTopology(), node);
+    computeLoviNode(lovis, lagged, lovisCache.getPeptide(), plan, node, row);
   }
 
-  public static double compute(Peptide peptide, String heading) {
+  /**
+   * Evaluates the columns of a node from its LOVI vector and the lag kernel already computed for it
+   * by {@link #computeLagKernel}; {@code peptide} provides the topology.
+   */
+  static void computeLoviNode(
+      double[] lovis,
+      LagKernel lagged,
+      Peptide peptide,
+      DescriptorPlan plan,
+      DescriptorPlan.LoviNode node,
+      double[] row) {
+    computeLoviNode(lovis, lagged, null, peptide, plan, node, row);
+  }
 
-    Map<String, Object> operators = HeaderValidator.validateHeaderAndGetOperators(heading);
+  /** As above, with the ES vector of the node when already computed, otherwise {@code null}. */
+  private static void computeLoviNode(
+      double[] lovis,
+      LagKernel lagged,
+      double[] states,
+      Peptide peptide,
+      DescriptorPlan plan,
+      DescriptorPlan.LoviNode node,
+      double[] row) {
+    for (DescriptorPlan.ClassicNode classic : node.getClassics()) {
+      final double[] lovisLocal;
+      if (Objects.isNull(classic.getClassic())) {
+        lovisLocal = lovis;
+      } else if (classic.getClassic().isLagged()) {
+        lovisLocal = lagged.get(classic.getClassic(), classic.getLag());
+      } else if (classic.getClassic() == CLASSIC_OPERATORS.ES && states != null) {
+        lovisLocal = states;
+      } else {
+        lovisLocal =
+            Classics.computeClassicalOperator(
+                lovis, peptide, classic.getClassic(), classic.getLag());
+      }
+      computeColumns(new VectorSummary(lovisLocal), plan, classic, row);
+    }
+  }
 
-    try {
-      AminoAcidPropertiesGetter aminoAcidPropertiesGetter = new AminoAcidPropertiesGetter();
-      double[] lovis =
-          aminoAcidPropertiesGetter.getAminoacidPropertyValues(
-              peptide.getSeqPeptide(),
-              (AMINOACID_PROPERTY) operators.get("PROPERTY"),
-              (GROUPS) operators.get("GROUP"));
+  /** Writes into {@code row} every column aggregating the vector of a classic node. */
+  static void computeColumns(
+      OrderedSummary summary,
+      DescriptorPlan plan,
+      DescriptorPlan.ClassicNode classic,
+      double[] row) {
+    List<Integer> choquetColumns = new ArrayList<>();
+    List<ChoquetParameters> choquets = new ArrayList<>();
+    List<Integer> gowawaColumns = new ArrayList<>();
+    List<GowawaParameters> gowawas = new ArrayList<>();
+    for (int c = 0; c < classic.getColumnCount(); c++) {
+      int column = classic.getColumn(c);
+      DescriptorSpec spec = plan.get(column);
+      if (spec.getAggregator() == AGGREGATOR_OPERATORS.CHOQUET) {
+        choquetColumns.add(column);
+        choquets.add(spec.getChoquet());
+      } else if (spec.getAggregator() == AGGREGATOR_OPERATORS.GOWAWA) {
+        gowawaColumns.add(column);
+        gowawas.add(spec.getGowawa());
+      } else {
+        // information, mean, norm and statistic operators
+        row[column] = summary.get(spec.getAggregator());
+      }
+    }
+    // quartiles, Choquet and GOWAWA read the same sorted view of the vector
+    if (!choquets.isEmpty()) {
+      double[] values = Choquet.computeAll(summary.getSortedView(), choquets);
+      for (int c = 0; c < values.length; c++) {
+        row[choquetColumns.get(c)] = values[c];
+      }
+    }
+    if (!gowawas.isEmpty()) {
+      double[] values = Gowawa.computeAll(summary.getSortedView(), gowawas);
+      for (int c = 0; c < values.length; c++) {
+        row[gowawaColumns.get(c)] = values[c];
+      }
+    }
+  }
 
-      return applyAggregationOperators(
-          peptide,
-          lovis,
-          (AggregatorOperators) operators.get("CLASSICAL"),
-          (AggregatorOperators) operators.get("NO_CLASSICAL"));
+  /**
+   * ES vectors of a peptide for every {@link AMINOACID_PROPERTY} of a group, indexed by property
+   * ordinal, computed in one batched call that shares the distance kernel. Plans batch the ES
+   * vectors of their own nodes through {@link #computeLoviNodes}.
+   */
+  public static double[][] computeElectroTopologicalStates(LoviCache lovisCache, GROUPS group) {
+    AMINOACID_PROPERTY[] properties = AMINOACID_PROPERTY.values();
+    double[][] lovis = new double[properties.length][];
+    for (AMINOACID_PROPERTY property : properties) {
+      lovis[property.ordinal()] = lovisCache.get(property, group);
+    }
+    return ElectroTopologicalState.computeAll(lovis, lovisCache.getPeptide().getTopology());
+  }
 
-    } catch (IOException e) {
-      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e.getMessage());
+  /** AC, GV and TS vectors for every lag used under {@code node}, {@code null} if none is. */
+  static LagKernel computeLagKernel(
+      double[] lovis, PeptideTopology topology, DescriptorPlan.LoviNode node) {
+    int fromK = Integer.MAX_VALUE;
+    int toK = 0;
+    for (DescriptorPlan.ClassicNode classic : node.getClassics()) {
+      if (Objects.nonNull(classic.getClassic()) && classic.getClassic().isLagged()) {
+        fromK = Math.min(fromK, classic.getLag());
+        toK = Math.max(toK, classic.getLag());
+      }
     }
+    return toK == 0 ? null : LagKernel.compute(lovis, topology, fromK, toK);
+  }
+
+  public static double[][] computeInBatch(PeptideContainer peptides, List<String> headings)
+      throws InterruptedException {
+    // the common pool, rather than a pool started and stopped for each call
+    StarpepEngine engine = new StarpepEngine(ForkJoinPool.commonPool());
+    return ((Array2DRowRealMatrix) engine.compute(peptides, headings)).getDataRef();
+  }
+
+  public static double compute(Peptide peptide, String heading) {
+    return compute(peptide, heading, AminoAcidPropertyCatalog.getDefault());
+  }
+
+  public static double compute(
+      Peptide peptide, String heading, AminoAcidPropertyCatalog propertyCatalog) {
+    DescriptorSpec spec = HeaderValidator.parse(heading);
+    double[] lovis =
+        propertyCatalog.getAminoacidPropertyValues(
+            peptide.getSeqPeptide(), spec.getProperty(), spec.getGroup());
+    return applyAggregationOperators(peptide, lovis, spec);
+  }
+
+  /** Computes a heading reusing the LOVI vectors already built for the same peptide. */
+  public static double compute(LoviCache lovisCache, String heading) {
+    return compute(lovisCache, HeaderValidator.parse(heading));
+  }
+
+  public static double compute(LoviCache lovisCache, DescriptorSpec spec) {
+    double[] lovis = lovisCache.get(spec.getProperty(), spec.getGroup());
+    return applyAggregationOperators(lovisCache.getPeptide(), lovis, spec);
   }
 
   private static double applyAggregationOperators(
-      Peptide peptide, double[] lovis, AggregatorOperators classic, AggregatorOperators noClassic) {
+      Peptide peptide, double[] lovis, DescriptorSpec spec) {
     double[] lovisLocal =
-        Objects.nonNull(classic)
-            ? Classics.computeClassicalOperator(lovis, peptide, classic)
+        Objects.nonNull(spec.getClassic())
+            ? Classics.computeClassicalOperator(lovis, peptide, spec.getClassic(), spec.getLag())
             : lovis;
-    return applyNoClassicOperator(lovisLocal, noClassic);
+    return applyNoClassicOperator(lovisLocal, spec);
   }
 
-  private static double applyNoClassicOperator(double[] lovis, AggregatorOperators noClassic) {
+  private static double applyNoClassicOperator(double[] lovis, DescriptorSpec spec) {
+    AGGREGATOR_OPERATORS noClassic = spec.getAggregator();
     switch (noClassic.getType()) {
-      case "INFORMATION":
+      case INFORMATION:
         return Information.computeInformationOperator(lovis, noClassic);
-      case "NORM":
+      case NORM:
         return Norms.computeNormOperator(lovis, noClassic);
-      case "MEAN":
+      case MEAN:
         return Means.computeMeansOperator(lovis, noClassic);
-      case "STATISTIC":
+      case STATISTIC:
         return Statistics.computeStatisticOperator(lovis, noClassic);
-      case "CHOQUET":
-        return Choquet.validateAndCompute(lovis, noClassic.getCode());
-      case "GOWAWA":
-        return Gowawa.validateAndCompute(lovis, noClassic.getCode());
+      case CHOQUET:
+        return Choquet.compute(lovis, spec.getChoquet());
+      case GOWAWA:
+        return Gowawa.compute(lovis, spec.getGowawa());
       default:
         throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
-            "Invalid No Classic operator code: " + noClassic.getCode());
+            "Invalid No Classic operator code: " + noClassic);
     }
   }
 
@@ -120,35 +277,15 @@ public class ComputeMD {
     }
   }
 
+  /**
+   * Materializes every heading of {@link DescriptorSpace#getDefault()}. Prefer planning ordinal
+   * ranges of the space, which builds no strings.
+   */
   public static Set<String> generate() {
-    List<GROUPS> groups = List.of(GROUPS.values());
-    List<AMINOACID_PROPERTY> properties = List.of(AMINOACID_PROPERTY.values());
-    List<String> choquet = List.of(Choquet.defaultChoquet);
-    List<String> gowawa = List.of(Gowawa.defaultOWAWAs);
-    List<String> aNC =
-        new LinkedList<>(
-            List.of(
-                "TIC", "SIC", "AM", "GM", "P2", "P3", "HM", "N1", "N2", "N3", "V", "SD", "VC", "RA",
-                "Q1", "Q2", "Q3", "I50", "S", "K", "MX", "MN"));
-    aNC.addAll(choquet);
-    aNC.addAll(gowawa);
-    String[] classics =
-        new String[] {
-          "ES", "MIC", "AC[1]", "AC[2]", "AC[3]", "AC[4]", "AC[5]", "AC[6]", "AC[7]", "GV[1]",
-          "GV[2]", "GV[3]", "GV[4]", "GV[5]", "GV[6]", "GV[7]", "TS[1]", "TS[2]", "TS[3]", "TS[4]",
-          "TS[5]", "TS[6]", "TS[7]"
-        };
-
-    Set<String> headers = new LinkedHashSet<>();
-    for (GROUPS group : groups) {
-      for (AMINOACID_PROPERTY property : properties) {
-        for (String nClassic : aNC) {
-          headers.add(nClassic + "_" + group.getCode() + "_" + property.toString());
-          for (String classic : classics) {
-            headers.add(classic + "_" + nClassic + "_" + group.getCode() + "_" + property);
-          }
-        }
-      }
+    DescriptorSpace space = DescriptorSpace.getDefault();
+    Set<String> headers = new LinkedHashSet<>(space.size() * 4 / 3 + 1);
+    for (int ordinal = 0; ordinal < space.size(); ordinal++) {
+      headers.add(space.name(ordinal));
     }
     return headers;
   }
@@ -0,0 +1,413 @@
+package tomocomd.md;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import tomocomd.StartpepException;
+import tomocomd.md.aggregation.Choquet;
+import tomocomd.md.aggregation.ElectroTopologicalState;
+import tomocomd.md.aggregation.Gowawa;
+import tomocomd.md.aggregation.LagKernel;
+import tomocomd.md.properties.LoviCache;
+import tomocomd.model.AGGREGATOR_TYPES;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.Peptide;
+
+/**
+ * Estimated time, in nanoseconds, of computing descriptors by family: the classic vector of a
+ * classic operator (the raw LOVI vector for none), plus each column aggregating it by aggregator
+ * type, for a peptide length bucket. Bucket bounds grow by a factor of {@code sqrt(2)} from {@link
+ * #MIN_BOUND} residues, and a peptide is costed as the longest peptide of its bucket.
+ *
+ * <p>The default model is analytic. {@link #calibrate()} measures the families on random peptides
+ * of a few {@link #CALIBRATION_LENGTHS lengths} and interpolates the other buckets on a log-log
+ * scale; {@link #save} and {@link #load} keep a calibration between runs, as a CSV file {@code
+ * classic,aggregator,length,nanos} with {@code VECTOR} as the aggregator of vector costs.
+ */
+public final class CostModel {
+
+  /** Upper length of the first bucket. */
+  static final int MIN_BOUND = 16;
+
+  /** Peptide lengths measured by {@link #calibrate()}. */
+  static final int[] CALIBRATION_LENGTHS = {16, 64, 256};
+
+  /** Least time spent measuring one family at one length, over {@link #MEASURE_ROUNDS} rounds. */
+  static final long MEASURE_NANOS = 1_000_000;
+
+  static final int MEASURE_ROUNDS = 5;
+
+  /** Upper lengths of the buckets, the last one covering any length. */
+  private static final int[] BOUNDS = createBounds();
+
+  private static final String RAW = "LOVI";
+  private static final String VECTOR = "VECTOR";
+  private static final int FAMILIES = CLASSIC_OPERATORS.values().length + 1;
+  private static final int TYPES = AGGREGATOR_TYPES.values().length;
+
+  private static final CostModel DEFAULT = createDefault();
+
+  private final double[][] vectorCosts; // [classic family][bucket]
+  private final double[][][] columnCosts; // [classic family][aggregator type][bucket]
+
+  private CostModel(double[][] vectorCosts, double[][][] columnCosts) {
+    this.vectorCosts = vectorCosts;
+    this.columnCosts = columnCosts;
+  }
+
+  public static CostModel getDefault() {
+    return DEFAULT;
+  }
+
+  /** Bucket of a peptide of {@code length} residues. */
+  public static int bucket(int length) {
+    int k = Arrays.binarySearch(BOUNDS, length);
+    return k >= 0 ? k : -k - 1;
+  }
+
+  public static int buckets() {
+    return BOUNDS.length;
+  }
+
+  /** Longest peptide of a bucket. */
+  public static int bucketBound(int bucket) {
+    return BOUNDS[bucket];
+  }
+
+  /** Time of the classic vector of {@code classic} ({@code null} for the LOVI vector). */
+  public double vectorCost(CLASSIC_OPERATORS classic, int length) {
+    return vectorCosts[family(classic)][bucket(length)];
+  }
+
+  /** Time of one column of {@code type} aggregating the vector of {@code classic}. */
+  public double columnCost(CLASSIC_OPERATORS classic, AGGREGATOR_TYPES type, int length) {
+    return columnCosts[family(classic)][type.ordinal()][bucket(length)];
+  }
+
+  /** Time of the columns of one LOVI node of a plan for a peptide of {@code length} residues. */
+  public double nodeCost(DescriptorPlan plan, DescriptorPlan.LoviNode node, int length) {
+    int bucket = bucket(length);
+    double cost = 0;
+    for (DescriptorPlan.ClassicNode classic : node.getClassics()) {
+      int family = family(classic.getClassic());
+      cost += vectorCosts[family][bucket];
+      for (int c = 0; c < classic.getColumnCount(); c++) {
+        AGGREGATOR_TYPES type = plan.get(classic.getColumn(c)).getAggregator().getType();
+        cost += columnCosts[family][type.ordinal()][bucket];
+      }
+    }
+    return cost;
+  }
+
+  /** Time of a row of the plan for a peptide of {@code length} residues. */
+  public double rowCost(DescriptorPlan plan, int length) {
+    double cost = 0;
+    for (DescriptorPlan.LoviNode node : plan.getLoviNodes()) {
+      cost += nodeCost(plan, node, length);
+    }
+    return cost;
+  }
+
+  /** Processor time of the whole job, on one thread. */
+  public double predictNanos(List<Peptide> peptides, DescriptorPlan plan) {
+    int[] counts = new int[BOUNDS.length];
+    for (Peptide peptide : peptides) {
+      counts[bucket(peptide.getLength())]++;
+    }
+    double nanos = 0;
+    for (int k = 0; k < counts.length; k++) {
+      if (counts[k] > 0) {
+        nanos += counts[k] * rowCost(plan, BOUNDS[k]);
+      }
+    }
+    return nanos;
+  }
+
+  /**
+   * Measures every family on this machine with the default catalog, in a second or two: the
+   * quickest of several rounds, timing the columns of a single node on prebuilt LOVI vectors. The
+   * vector cost is the time of a node with one N1 column; a column cost is the time added by the
+   * columns of its type, over their number.
+   */
+  public static CostModel calibrate() {
+    Random random = new Random(7);
+    // a first pass over the shortest peptides is discarded, so the code measured is compiled
+    List<Peptide> warmUp = randomPeptides(random, CALIBRATION_LENGTHS[0]);
+    for (int family = 0; family < FAMILIES; family++) {
+      for (AGGREGATOR_TYPES type : AGGREGATOR_TYPES.values()) {
+        measure(warmUp, plan(classicCode(family), codes(type)));
+      }
+    }
+
+    double[][] vectorSamples = new double[FAMILIES][CALIBRATION_LENGTHS.length];
+    double[][][] columnSamples = new double[FAMILIES][TYPES][CALIBRATION_LENGTHS.length];
+    for (int l = 0; l < CALIBRATION_LENGTHS.length; l++) {
+      List<Peptide> peptides = randomPeptides(random, CALIBRATION_LENGTHS[l]);
+      for (int family = 0; family < FAMILIES; family++) {
+        String prefix = classicCode(family);
+        double vector = measure(peptides, plan(prefix, List.of("N1")));
+        vectorSamples[family][l] = vector;
+        for (AGGREGATOR_TYPES type : AGGREGATOR_TYPES.values()) {
+          List<String> codes = codes(type);
+          double all = measure(peptides, plan(prefix, codes));
+          columnSamples[family][type.ordinal()][l] = Math.max(0, all - vector) / codes.size();
+        }
+      }
+    }
+
+    double[][] vectorCosts = new double[FAMILIES][];
+    double[][][] columnCosts = new double[FAMILIES][TYPES][];
+    for (int family = 0; family < FAMILIES; family++) {
+      vectorCosts[family] = interpolate(vectorSamples[family]);
+      for (int type = 0; type < TYPES; type++) {
+        columnCosts[family][type] = interpolate(columnSamples[family][type]);
+      }
+    }
+    return new CostModel(vectorCosts, columnCosts);
+  }
+
+  public void save(Path path) throws IOException {
+    try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+      pw.println("classic,aggregator,length,nanos");
+      for (int family = 0; family < FAMILIES; family++) {
+        for (int k = 0; k < BOUNDS.length; k++) {
+          printCost(pw, family, VECTOR, k, vectorCosts[family][k]);
+        }
+        for (AGGREGATOR_TYPES type : AGGREGATOR_TYPES.values()) {
+          for (int k = 0; k < BOUNDS.length; k++) {
+            printCost(pw, family, type.name(), k, columnCosts[family][type.ordinal()][k]);
+          }
+        }
+      }
+    }
+  }
+
+  private static void printCost(
+      PrintWriter pw, int family, String aggregator, int bucket, double nanos) {
+    pw.println(classicName(family) + "," + aggregator + "," + BOUNDS[bucket] + "," + nanos);
+  }
+
+  public static CostModel load(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return load(in);
+    }
+  }
+
+  /** Reads a profile written by {@link #save}; families or buckets it lacks keep the default. */
+  public static CostModel load(InputStream profile) throws IOException {
+    Objects.requireNonNull(profile, "cost profile");
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(profile, StandardCharsets.UTF_8));
+    if (reader.readLine() == null) {
+      throw StartpepException.ExceptionType.READ_COST_PROFILE_EXCEPTION.get("Empty cost profile");
+    }
+    double[][] vectorCosts = new double[FAMILIES][];
+    double[][][] columnCosts = new double[FAMILIES][TYPES][];
+    for (int family = 0; family < FAMILIES; family++) {
+      vectorCosts[family] = DEFAULT.vectorCosts[family].clone();
+      for (int type = 0; type < TYPES; type++) {
+        columnCosts[family][type] = DEFAULT.columnCosts[family][type].clone();
+      }
+    }
+
+    String currentLine;
+    int lineNumber = 1;
+    while ((currentLine = reader.readLine()) != null) {
+      lineNumber++;
+      if (currentLine.trim().isEmpty()) {
+        continue;
+      }
+      String[] components = currentLine.split(",");
+      try {
+        if (components.length != 4) {
+          throw new IllegalArgumentException(components.length + " columns, expected 4");
+        }
+        int family = familyOf(components[0].trim());
+        String aggregator = components[1].trim();
+        int k = Arrays.binarySearch(BOUNDS, Integer.parseInt(components[2].trim()));
+        if (k < 0) {
+          throw new IllegalArgumentException("not a bucket length: " + components[2]);
+        }
+        double nanos = Double.parseDouble(components[3]);
+        if (aggregator.equals(VECTOR)) {
+          vectorCosts[family][k] = nanos;
+        } else {
+          columnCosts[family][AGGREGATOR_TYPES.valueOf(aggregator).ordinal()][k] = nanos;
+        }
+      } catch (IllegalArgumentException e) {
+        throw StartpepException.ExceptionType.READ_COST_PROFILE_EXCEPTION.get(
+            "Invalid line " + lineNumber + ": " + currentLine, e);
+      }
+    }
+    return new CostModel(vectorCosts, columnCosts);
+  }
+
+  private static int family(CLASSIC_OPERATORS classic) {
+    return classic == null ? 0 : classic.ordinal() + 1;
+  }
+
+  private static String classicName(int family) {
+    return family == 0 ? RAW : CLASSIC_OPERATORS.values()[family - 1].name();
+  }
+
+  private static int familyOf(String name) {
+    if (name.equals(RAW)) {
+      return 0;
+    }
+    return CLASSIC_OPERATORS.valueOf(name).ordinal() + 1;
+  }
+
+  /** Heading prefix of a family in the calibration plans; lagged operators at lag 3. */
+  private static String classicCode(int family) {
+    if (family == 0) {
+      return "";
+    }
+    CLASSIC_OPERATORS classic = CLASSIC_OPERATORS.values()[family - 1];
+    return classic.isLagged() ? classic + "[3]_" : classic + "_";
+  }
+
+  /** Aggregator codes measured for a type. */
+  private static List<String> codes(AGGREGATOR_TYPES type) {
+    switch (type) {
+      case INFORMATION:
+        return List.of("TIC", "SIC");
+      case MEAN:
+        return List.of("AM", "GM", "P2", "P3", "HM");
+      case NORM:
+        return List.of("N1", "N2", "N3");
+      case STATISTIC:
+        return List.of("V", "SD", "VC", "RA", "Q1", "Q2", "Q3", "I50", "S", "K", "MX", "MN");
+      case CHOQUET:
+        return Arrays.asList(Choquet.defaultChoquet);
+      default:
+        return Arrays.asList(Gowawa.defaultOWAWAs);
+    }
+  }
+
+  private static DescriptorPlan plan(String classicPrefix, List<String> aggregatorCodes) {
+    List<String> headings = new ArrayList<>(aggregatorCodes.size());
+    for (String code : aggregatorCodes) {
+      headings.add(classicPrefix + code + "_T_ptt");
+    }
+    return DescriptorPlan.compile(headings);
+  }
+
+  private static List<Peptide> randomPeptides(Random random, int length) {
+    String residues = "ACDEFGHIKLMNPQRSTVWY";
+    List<Peptide> peptides = new ArrayList<>();
+    for (int p = 0; p < 2; p++) {
+      StringBuilder sequence = new StringBuilder(length);
+      for (int r = 0; r < length; r++) {
+        sequence.append(residues.charAt(random.nextInt(residues.length())));
+      }
+      try {
+        peptides.add(new Peptide("calibration" + p, sequence.toString()));
+      } catch (Exception e) {
+        throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
+      }
+    }
+    return peptides;
+  }
+
+  /** Nanoseconds per peptide of the single LOVI node of a plan, quickest of the rounds. */
+  private static double measure(List<Peptide> peptides, DescriptorPlan plan) {
+    DescriptorPlan.LoviNode node = plan.getLoviNodes().get(0);
+    double[][] lovis = new double[peptides.size()][];
+    for (int p = 0; p < lovis.length; p++) {
+      lovis[p] = new LoviCache(peptides.get(p)).get(node.getProperty(), node.getGroup());
+    }
+    double[] row = new double[plan.size()];
+    Runnable pass =
+        () -> {
+          for (int p = 0; p < lovis.length; p++) {
+            Peptide peptide = peptides.get(p);
+            LagKernel lagged = ComputeMD.computeLagKernel(lovis[p], peptide.getTopology(), node);
+            ComputeMD.computeLoviNode(lovis[p], lagged, peptide, plan, node, row);
+          }
+        };
+    pass.run();
+    double quickest = Double.POSITIVE_INFINITY;
+    for (int round = 0; round < MEASURE_ROUNDS; round++) {
+      long count = 0;
+      long start = System.nanoTime();
+      long elapsed;
+      do {
+        pass.run();
+        count += lovis.length;
+        elapsed = System.nanoTime() - start;
+      } while (elapsed < MEASURE_NANOS / MEASURE_ROUNDS);
+      quickest = Math.min(quickest, (double) elapsed / count);
+    }
+    return quickest;
+  }
+
+  /**
+   * Costs of every bucket from samples at {@link #CALIBRATION_LENGTHS}: linear in log-log scale
+   * between the samples, and along the first and last segments outside them.
+   */
+  private static double[] interpolate(double[] samples) {
+    double[] costs = new double[BOUNDS.length];
+    int last = CALIBRATION_LENGTHS.length - 1;
+    for (int k = 0; k < BOUNDS.length; k++) {
+      double x = Math.log(BOUNDS[k]);
+      int s = 0;
+      while (s < last - 1 && BOUNDS[k] > CALIBRATION_LENGTHS[s + 1]) {
+        s++;
+      }
+      double x0 = Math.log(CALIBRATION_LENGTHS[s]);
+      double x1 = Math.log(CALIBRATION_LENGTHS[s + 1]);
+      double y0 = Math.log(Math.max(samples[s], 1));
+      double y1 = Math.log(Math.max(samples[s + 1], 1));
+      double slope = Math.max(0, (y1 - y0) / (x1 - x0));
+      costs[k] = Math.exp(y0 + slope * (x - x0));
+    }
+    return costs;
+  }
+
+  private static int[] createBounds() {
+    int[] bounds = new int[64];
+    int size = 0;
+    double bound = MIN_BOUND;
+    while (bound < Integer.MAX_VALUE) {
+      bounds[size++] = (int) Math.ceil(bound);
+      bound *= Math.sqrt(2);
+    }
+    bounds[size++] = Integer.MAX_VALUE;
+    return Arrays.copyOf(bounds, size);
+  }
+
+  /**
+   * Rough costs of a commodity core: {@code n} for building a vector, {@code n^2 / 2} more for ES
+   * below its FFT threshold, and per column {@code n} for norms and means, {@code 4n} for the
+   * statistics, information content and Choquet integrals, {@code 8n} for GOWAWA.
+   */
+  private static CostModel createDefault() {
+    double[][] vectorCosts = new double[FAMILIES][BOUNDS.length];
+    double[][][] columnCosts = new double[FAMILIES][TYPES][BOUNDS.length];
+    for (int k = 0; k < BOUNDS.length; k++) {
+      double n = BOUNDS[k];
+      for (int family = 0; family < FAMILIES; family++) {
+        vectorCosts[family][k] = 50 + 2 * n;
+        columnCosts[family][AGGREGATOR_TYPES.NORM.ordinal()][k] = 20 + n;
+        columnCosts[family][AGGREGATOR_TYPES.MEAN.ordinal()][k] = 20 + 2 * n;
+        columnCosts[family][AGGREGATOR_TYPES.STATISTIC.ordinal()][k] = 20 + 4 * n;
+        columnCosts[family][AGGREGATOR_TYPES.INFORMATION.ordinal()][k] = 50 + 4 * n;
+        columnCosts[family][AGGREGATOR_TYPES.CHOQUET.ordinal()][k] = 100 + 4 * n;
+        columnCosts[family][AGGREGATOR_TYPES.GOWAWA.ordinal()][k] = 100 + 8 * n;
+      }
+      int es = family(CLASSIC_OPERATORS.ES);
+      vectorCosts[es][k] += n * Math.min(n, ElectroTopologicalState.FFT_THRESHOLD) / 2;
+    }
+    return new CostModel(vectorCosts, columnCosts);
+  }
+}
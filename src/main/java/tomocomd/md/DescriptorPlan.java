@@ -0,0 +1,156 @@
+package tomocomd.md;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.DescriptorSpec;
+import tomocomd.model.GROUPS;
+
+/**
+ * Immutable, ordered set of descriptors to compute. Headings are parsed once when the plan is
+ * compiled; column {@code j} of a result matrix holds descriptor {@link #get(int) get(j)}.
+ *
+ * <p>The plan also groups its descriptors as a tree: each {@link LoviNode} (group, property) feeds
+ * its {@link ClassicNode}s (classic operator and lag, or the raw LOVI vector), and each classic
+ * node feeds the columns aggregating it. Evaluating the tree computes every intermediate vector
+ * once per peptide.
+ */
+public final class DescriptorPlan {
+
+  private final List<DescriptorSpec> specs;
+  private final List<LoviNode> loviNodes;
+
+  private DescriptorPlan(List<DescriptorSpec> specs) {
+    this.specs = Collections.unmodifiableList(specs);
+    this.loviNodes = Collections.unmodifiableList(buildNodes(specs));
+  }
+
+  public static DescriptorPlan compile(Collection<String> headings) {
+    List<DescriptorSpec> specs = new ArrayList<>(headings.size());
+    for (String heading : headings) {
+      specs.add(HeaderValidator.parse(heading));
+    }
+    return new DescriptorPlan(specs);
+  }
+
+  public static DescriptorPlan of(Collection<DescriptorSpec> specs) {
+    return new DescriptorPlan(new ArrayList<>(specs));
+  }
+
+  public int size() {
+    return specs.size();
+  }
+
+  public DescriptorSpec get(int column) {
+    return specs.get(column);
+  }
+
+  public List<DescriptorSpec> getSpecs() {
+    return specs;
+  }
+
+  /** The (group, property) roots of the plan, in order of first use. */
+  public List<LoviNode> getLoviNodes() {
+    return loviNodes;
+  }
+
+  public List<String> getHeadings() {
+    List<String> headings = new ArrayList<>(specs.size());
+    for (DescriptorSpec spec : specs) {
+      headings.add(spec.getName());
+    }
+    return headings;
+  }
+
+  private static List<LoviNode> buildNodes(List<DescriptorSpec> specs) {
+    Map<List<Object>, Map<List<Object>, List<Integer>>> tree = new LinkedHashMap<>();
+    for (int column = 0; column < specs.size(); column++) {
+      DescriptorSpec spec = specs.get(column);
+      tree.computeIfAbsent(
+              Arrays.asList(spec.getGroup(), spec.getProperty()), k -> new LinkedHashMap<>())
+          .computeIfAbsent(Arrays.asList(spec.getClassic(), spec.getLag()), k -> new ArrayList<>())
+          .add(column);
+    }
+
+    List<LoviNode> nodes = new ArrayList<>(tree.size());
+    for (Map.Entry<List<Object>, Map<List<Object>, List<Integer>>> lovi : tree.entrySet()) {
+      List<ClassicNode> classics = new ArrayList<>(lovi.getValue().size());
+      for (Map.Entry<List<Object>, List<Integer>> classic : lovi.getValue().entrySet()) {
+        classics.add(
+            new ClassicNode(
+                (CLASSIC_OPERATORS) classic.getKey().get(0),
+                (Integer) classic.getKey().get(1),
+                classic.getValue().stream().mapToInt(Integer::intValue).toArray()));
+      }
+      nodes.add(
+          new LoviNode(
+              (GROUPS) lovi.getKey().get(0),
+              (AMINOACID_PROPERTY) lovi.getKey().get(1),
+              Collections.unmodifiableList(classics)));
+    }
+    return nodes;
+  }
+
+  /** LOVI vector of one (group, property) pair and the classic vectors derived from it. */
+  public static final class LoviNode {
+    private final GROUPS group;
+    private final AMINOACID_PROPERTY property;
+    private final List<ClassicNode> classics;
+
+    private LoviNode(GROUPS group, AMINOACID_PROPERTY property, List<ClassicNode> classics) {
+      this.group = group;
+      this.property = property;
+      this.classics = classics;
+    }
+
+    public GROUPS getGroup() {
+      return group;
+    }
+
+    public AMINOACID_PROPERTY getProperty() {
+      return property;
+    }
+
+    public List<ClassicNode> getClassics() {
+      return classics;
+    }
+  }
+
+  /**
+   * Vector produced by a classic operator, or the raw LOVI vector when {@link #getClassic()} is
+   * {@code null}, and the plan columns aggregating it.
+   */
+  public static final class ClassicNode {
+    private final CLASSIC_OPERATORS classic;
+    private final int lag;
+    private final int[] columns;
+
+    private ClassicNode(CLASSIC_OPERATORS classic, int lag, int[] columns) {
+      this.classic = classic;
+      this.lag = lag;
+      this.columns = columns;
+    }
+
+    public CLASSIC_OPERATORS getClassic() {
+      return classic;
+    }
+
+    public int getLag() {
+      return lag;
+    }
+
+    public int getColumnCount() {
+      return columns.length;
+    }
+
+    public int getColumn(int i) {
+      return columns[i];
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package tomocomd.md;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import tomocomd.md.aggregation.Choquet;
+import tomocomd.md.aggregation.Gowawa;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.DescriptorSpec;
+import tomocomd.model.GROUPS;
+
+/**
+ * Indexed, non-materialized descriptor space: group x property x aggregator x classic variant.
+ * Every descriptor has a dense ordinal in the order of {@link ComputeMD#generate()}, so ranges of
+ * the space can be planned and computed without building its heading strings.
+ */
+public final class DescriptorSpace implements Iterable<DescriptorSpec> {
+
+  private static final String[] DEFAULT_AGGREGATORS = {
+    "TIC", "SIC", "AM", "GM", "P2", "P3", "HM", "N1", "N2", "N3", "V", "SD", "VC", "RA", "Q1", "Q2",
+    "Q3", "I50", "S", "K", "MX", "MN"
+  };
+
+  private static final String[] DEFAULT_CLASSICS = {
+    "ES", "MIC", "AC[1]", "AC[2]", "AC[3]", "AC[4]", "AC[5]", "AC[6]", "AC[7]", "GV[1]", "GV[2]",
+    "GV[3]", "GV[4]", "GV[5]", "GV[6]", "GV[7]", "TS[1]", "TS[2]", "TS[3]", "TS[4]", "TS[5]",
+    "TS[6]", "TS[7]"
+  };
+
+  private static final DescriptorSpace DEFAULT = createDefault();
+
+  private final GROUPS[] groups;
+  private final AMINOACID_PROPERTY[] properties;
+  private final DescriptorSpec[] aggregators;
+  private final CLASSIC_OPERATORS[] classics;
+  private final int[] lags;
+  private final Map<String, Integer> aggregatorIndex;
+  private final int size;
+
+  private DescriptorSpace(
+      GROUPS[] groups,
+      AMINOACID_PROPERTY[] properties,
+      DescriptorSpec[] aggregators,
+      CLASSIC_OPERATORS[] classics,
+      int[] lags) {
+    this.groups = groups;
+    this.properties = properties;
+    this.aggregators = aggregators;
+    this.classics = classics;
+    this.lags = lags;
+    this.aggregatorIndex = new HashMap<>();
+    for (int a = 0; a < aggregators.length; a++) {
+      aggregatorIndex.put(aggregators[a].getAggregatorCode(), a);
+    }
+    long total = (long) groups.length * properties.length * aggregators.length * classics.length;
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Descriptor space too large: " + total);
+    }
+    this.size = (int) total;
+  }
+
+  /** The full space enumerated by {@link ComputeMD#generate()}. */
+  public static DescriptorSpace getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Builds a space over the given groups, properties, aggregator codes ({@code TIC}, {@code
+   * CHOQUET[...]}, ...) and classic codes ({@code ES}, {@code AC[3]}, ...). The plain aggregator,
+   * without classic operator, is always the first variant of each aggregator. Repeated codes keep
+   * their first position, as in {@link ComputeMD#generate()}.
+   */
+  public static DescriptorSpace of(
+      List<GROUPS> groups,
+      List<AMINOACID_PROPERTY> properties,
+      List<String> aggregatorCodes,
+      List<String> classicCodes) {
+    List<String> uniqueCodes = new ArrayList<>(new LinkedHashSet<>(aggregatorCodes));
+    DescriptorSpec[] aggregators = new DescriptorSpec[uniqueCodes.size()];
+    for (int a = 0; a < aggregators.length; a++) {
+      // parse a template heading to validate the code and pre-parse its parameters
+      aggregators[a] = HeaderValidator.parse(uniqueCodes.get(a) + "_T_ptt");
+    }
+
+    CLASSIC_OPERATORS[] classics = new CLASSIC_OPERATORS[classicCodes.size() + 1];
+    int[] lags = new int[classics.length];
+    for (int c = 1; c < classics.length; c++) {
+      DescriptorSpec template = HeaderValidator.parse(classicCodes.get(c - 1) + "_TIC_T_ptt");
+      classics[c] = template.getClassic();
+      lags[c] = template.getLag();
+    }
+
+    return new DescriptorSpace(
+        groups.toArray(new GROUPS[0]),
+        properties.toArray(new AMINOACID_PROPERTY[0]),
+        aggregators,
+        classics,
+        lags);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public DescriptorSpec get(int ordinal) {
+    if (ordinal < 0 || ordinal >= size) {
+      throw new IndexOutOfBoundsException("Ordinal " + ordinal + " outside [0, " + size + ")");
+    }
+    int c = ordinal % classics.length;
+    int rest = ordinal / classics.length;
+    int a = rest % aggregators.length;
+    rest /= aggregators.length;
+    int p = rest % properties.length;
+    int g = rest / properties.length;
+
+    DescriptorSpec aggregator = aggregators[a];
+    switch (aggregator.getAggregator()) {
+      case CHOQUET:
+        return DescriptorSpec.of(
+            null, classics[c], lags[c], aggregator.getChoquet(), groups[g], properties[p]);
+      case GOWAWA:
+        return DescriptorSpec.of(
+            null, classics[c], lags[c], aggregator.getGowawa(), groups[g], properties[p]);
+      default:
+        return DescriptorSpec.of(
+            null, classics[c], lags[c], aggregator.getAggregator(), groups[g], properties[p]);
+    }
+  }
+
+  /** Returns the ordinal of a descriptor, or {@code -1} when it is not part of this space. */
+  public int ordinalOf(DescriptorSpec spec) {
+    int g = indexOf(groups, spec.getGroup());
+    int p = indexOf(properties, spec.getProperty());
+    Integer a = aggregatorIndex.get(spec.getAggregatorCode());
+    int c = -1;
+    for (int i = 0; i < classics.length && c < 0; i++) {
+      if (classics[i] == spec.getClassic() && lags[i] == spec.getLag()) {
+        c = i;
+      }
+    }
+    if (g < 0 || p < 0 || a == null || c < 0) {
+      return -1;
+    }
+    return ((g * properties.length + p) * aggregators.length + a) * classics.length + c;
+  }
+
+  /** Renders the heading of an ordinal. */
+  public String name(int ordinal) {
+    return get(ordinal).getName();
+  }
+
+  /** Plans the descriptors with ordinals in {@code [from, to)}. */
+  public DescriptorPlan plan(int from, int to) {
+    if (from < 0 || to > size || from > to) {
+      throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside the space");
+    }
+    List<DescriptorSpec> specs = new ArrayList<>(to - from);
+    for (int ordinal = from; ordinal < to; ordinal++) {
+      specs.add(get(ordinal));
+    }
+    return DescriptorPlan.of(specs);
+  }
+
+  public DescriptorPlan plan() {
+    return plan(0, size);
+  }
+
+  @Override
+  public Iterator<DescriptorSpec> iterator() {
+    return new Iterator<DescriptorSpec>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < size;
+      }
+
+      @Override
+      public DescriptorSpec next() {
+        if (next >= size) {
+          throw new NoSuchElementException();
+        }
+        return get(next++);
+      }
+    };
+  }
+
+  private static <T> int indexOf(T[] values, T value) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static DescriptorSpace createDefault() {
+    List<String> aggregators = new ArrayList<>(Arrays.asList(DEFAULT_AGGREGATORS));
+    aggregators.addAll(Arrays.asList(Choquet.defaultChoquet));
+    aggregators.addAll(Arrays.asList(Gowawa.defaultOWAWAs));
+    return of(
+        Arrays.asList(GROUPS.values()),
+        Arrays.asList(AMINOACID_PROPERTY.values()),
+        aggregators,
+        Arrays.asList(DEFAULT_CLASSICS));
+  }
+}
@@ -1,19 +1,41 @@
 package tomocomd.md;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tomocomd.StartpepException;
+import tomocomd.math.MathTomocomd;
+import tomocomd.model.AGGREGATOR_OPERATORS;
 import tomocomd.model.AMINOACID_PROPERTY;
 import tomocomd.model.AggregatorOperators;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.ChoquetParameters;
+import tomocomd.model.DescriptorSpec;
 import tomocomd.model.GROUPS;
+import tomocomd.model.GowawaParameters;
 
 public class HeaderValidator {
 
   private static final Logger log = LoggerFactory.getLogger(HeaderValidator.class);
 
+  private static final int PARALLEL_THRESHOLD = 10_000;
+  private static final Map<String, AMINOACID_PROPERTY> PROPERTIES = new HashMap<>();
+
+  static {
+    for (AMINOACID_PROPERTY property : AMINOACID_PROPERTY.values()) {
+      PROPERTIES.put(property.name(), property);
+    }
+  }
+
   protected HeaderValidator() {
     throw new UnsupportedOperationException("This class cannot be instantiated");
   }
@@ -68,13 +90,172 @@ public class HeaderValidator {
     return new AggregatorOperators[] {cA, nCA};
   }
 
+  /**
+   * Parses a heading into its typed form. Unlike {@link #validateHeaderAndGetOperators(String)},
+   * classic operators (ES, MIC, AC, GV, TS) are rejected in the aggregator position.
+   */
+  public static DescriptorSpec parse(String header) {
+    ParseResult result = parseHeading(header);
+    if (result.spec != null) {
+      return result.spec;
+    }
+    if (result.errorType == null) {
+      throw new IllegalArgumentException(result.reason);
+    }
+    throw result.errorType.get(result.reason);
+  }
+
+  /**
+   * Validates a list of headings in one pass, without throwing, and reports the valid specs in
+   * order of first occurrence, the invalid headings with their reasons and the duplicates. Large
+   * lists are parsed in parallel; the report does not depend on it.
+   */
+  public static ValidationReport validate(Collection<String> headers) {
+    String[] input = headers.toArray(new String[0]);
+    IntStream indexes = IntStream.range(0, input.length);
+    if (input.length >= PARALLEL_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+    ParseResult[] results =
+        indexes.mapToObj(i -> parseHeading(input[i])).toArray(ParseResult[]::new);
+
+    Set<DescriptorSpec> valid = new LinkedHashSet<>();
+    Map<String, String> invalid = new LinkedHashMap<>();
+    List<String> duplicates = new ArrayList<>();
+    for (int i = 0; i < input.length; i++) {
+      ParseResult result = results[i];
+      if (result.spec == null) {
+        invalid.putIfAbsent(String.valueOf(input[i]), result.reason);
+      } else if (!valid.add(result.spec)) {
+        duplicates.add(input[i]);
+      }
+    }
+    return new ValidationReport(new ArrayList<>(valid), invalid, duplicates);
+  }
+
+  private static ParseResult parseHeading(String header) {
+    if (header == null) {
+      return ParseResult.error(null, "Header is null");
+    }
+
+    if (header.isEmpty()) {
+      return ParseResult.error(null, "Header is empty");
+    }
+
+    String[] components = header.split("_");
+
+    if (components.length < 3 || components.length > 4) {
+      return ParseResult.error(null, "Header must have at least three components");
+    }
+
+    int pos = 0;
+    CLASSIC_OPERATORS classic = null;
+    int lag = 0;
+    if (components.length == 4) {
+      String classicCode = components[pos++];
+      int bracket = classicCode.indexOf('[');
+      classic =
+          CLASSIC_OPERATORS.find(bracket < 0 ? classicCode : classicCode.substring(0, bracket));
+      if (classic == null) {
+        return ParseResult.error(
+            StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR,
+            "Invalid Classic operator code: " + classicCode);
+      }
+      if (!classic.isLagged() && bracket >= 0) {
+        return ParseResult.error(
+            StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR,
+            classicCode + " does not accept a lag");
+      }
+      lag = classic.isLagged() ? parseLag(classicCode, bracket) : 0;
+      if (lag < 0) {
+        return ParseResult.error(
+            StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR,
+            "Invalid lag in classic operator: " + classicCode);
+      }
+    }
+
+    String aggregatorCode = components[pos++];
+    AGGREGATOR_OPERATORS aggregator = AGGREGATOR_OPERATORS.find(aggregatorCode);
+    if (aggregator == null) {
+      return ParseResult.error(
+          StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR,
+          "Invalid aggregator operator code: " + aggregatorCode);
+    }
+    GROUPS group = GROUPS.find(components[pos]);
+    if (group == null) {
+      return ParseResult.error(
+          StartpepException.ExceptionType.INVALID_GROUP_OPERATOR,
+          "Invalid code: " + components[pos]);
+    }
+    AMINOACID_PROPERTY property = PROPERTIES.get(components[++pos]);
+    if (property == null) {
+      return ParseResult.error(
+          StartpepException.ExceptionType.INVALID_PROPERTY_OPERATOR,
+          "Invalid property code: " + components[pos]);
+    }
+
+    StringBuilder reason = new StringBuilder();
+    switch (aggregator) {
+      case CHOQUET:
+        ChoquetParameters choquet = ChoquetParameters.tryParse(aggregatorCode, reason);
+        return choquet == null
+            ? ParseResult.error(
+                StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION,
+                "Error in choquet configuration: " + reason)
+            : ParseResult.of(DescriptorSpec.of(header, classic, lag, choquet, group, property));
+      case GOWAWA:
+        GowawaParameters gowawa = GowawaParameters.tryParse(aggregatorCode, reason);
+        return gowawa == null
+            ? ParseResult.error(
+                StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION,
+                "Error in GOWAWA configuration: " + reason)
+            : ParseResult.of(DescriptorSpec.of(header, classic, lag, gowawa, group, property));
+      default:
+        return ParseResult.of(DescriptorSpec.of(header, classic, lag, aggregator, group, property));
+    }
+  }
+
+  /** Lag between the brackets of {@code AC[k]}, {@code -1} when missing or not positive. */
+  private static int parseLag(String classicCode, int bracket) {
+    if (bracket < 0 || !classicCode.endsWith("]")) {
+      return -1;
+    }
+    String lag = classicCode.substring(bracket + 1, classicCode.length() - 1);
+    if (!MathTomocomd.isInteger(lag)) {
+      return -1;
+    }
+    int value = Integer.parseInt(lag);
+    return value < 1 ? -1 : value;
+  }
+
   public static boolean validateHeader(String header) {
-    try {
-      validateHeaderAndGetOperators(header);
-      return true;
-    } catch (Exception e) {
-      log.error(e.getMessage());
+    ParseResult result = parseHeading(header);
+    if (result.spec == null) {
+      log.error(result.reason);
       return false;
     }
+    return true;
+  }
+
+  /** Outcome of parsing one heading: the spec, or the exception type and reason of the error. */
+  private static final class ParseResult {
+    private final DescriptorSpec spec;
+    private final StartpepException.ExceptionType errorType;
+    private final String reason;
+
+    private ParseResult(
+        DescriptorSpec spec, StartpepException.ExceptionType errorType, String reason) {
+      this.spec = spec;
+      this.errorType = errorType;
+      this.reason = reason;
+    }
+
+    static ParseResult of(DescriptorSpec spec) {
+      return new ParseResult(spec, null, null);
+    }
+
+    static ParseResult error(StartpepException.ExceptionType errorType, String reason) {
+      return new ParseResult(null, errorType, reason);
+    }
   }
 }
@@ -0,0 +1,102 @@
+package tomocomd.md;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import tomocomd.StartpepException;
+import tomocomd.md.aggregation.LagKernel;
+import tomocomd.md.properties.AminoAcidPropertyCatalog;
+import tomocomd.md.properties.LoviCache;
+import tomocomd.model.Mutation;
+import tomocomd.model.Peptide;
+
+/**
+ * Descriptors of single-residue variants of a parent peptide. The parent LOVI vectors, lag kernels
+ * and row are computed once; a variant then patches one LOVI entry per node and the lag pairs
+ * containing the mutated position, and nodes whose LOVI does not change, e.g. a group neither
+ * residue belongs to, copy the parent columns. No variant {@link Peptide} or sequence is built:
+ * substitutions keep the parent topology.
+ *
+ * <p>Rows are the same as {@link ComputeMD#computeInBatch(Peptide, DescriptorPlan)} of the variant
+ * peptide. A scan is immutable once built, so {@link #compute(Mutation)} may be called from several
+ * threads.
+ */
+public final class MutationScan {
+
+  private final Peptide parent;
+  private final DescriptorPlan plan;
+  private final AminoAcidPropertyCatalog catalog;
+  private final List<DescriptorPlan.LoviNode> nodes;
+  private final double[][] parentLovis;
+  private final LagKernel[] parentKernels;
+  private final double[] parentRow;
+
+  public MutationScan(Peptide parent, DescriptorPlan plan) {
+    this(parent, plan, AminoAcidPropertyCatalog.getDefault());
+  }
+
+  public MutationScan(Peptide parent, DescriptorPlan plan, AminoAcidPropertyCatalog catalog) {
+    this.parent = parent;
+    this.plan = plan;
+    this.catalog = catalog;
+    this.nodes = plan.getLoviNodes();
+    this.parentLovis = new double[nodes.size()][];
+    this.parentKernels = new LagKernel[nodes.size()];
+    this.parentRow = new double[plan.size()];
+
+    LoviCache lovisCache = new LoviCache(parent, catalog);
+    for (int n = 0; n < nodes.size(); n++) {
+      DescriptorPlan.LoviNode node = nodes.get(n);
+      parentLovis[n] = lovisCache.get(node.getProperty(), node.getGroup());
+      parentKernels[n] = ComputeMD.computeLagKernel(parentLovis[n], parent.getTopology(), node);
+      ComputeMD.computeLoviNode(parentLovis[n], parentKernels[n], parent, plan, node, parentRow);
+    }
+  }
+
+  public Peptide getParent() {
+    return parent;
+  }
+
+  public DescriptorPlan getPlan() {
+    return plan;
+  }
+
+  /** Row of the parent peptide. */
+  public double[] computeParent() {
+    return parentRow.clone();
+  }
+
+  /** Row of the variant produced by {@code mutation}. */
+  public double[] compute(Mutation mutation) {
+    int position = mutation.getPosition();
+    String sequence = parent.getSeqPeptide();
+    if (position >= sequence.length() || sequence.charAt(position) != mutation.getWildType()) {
+      throw StartpepException.ExceptionType.INVALID_MUTATION.get(
+          mutation + " does not match peptide " + parent.getIdPeptide());
+    }
+
+    double[] row = parentRow.clone();
+    for (int n = 0; n < nodes.size(); n++) {
+      DescriptorPlan.LoviNode node = nodes.get(n);
+      double lovi = catalog.getLovi(mutation.getResidue(), node.getProperty(), node.getGroup());
+      if (Double.doubleToRawLongBits(lovi)
+          == Double.doubleToRawLongBits(parentLovis[n][position])) {
+        continue; // same LOVI vector, the parent columns hold
+      }
+      double[] lovis = parentLovis[n].clone();
+      lovis[position] = lovi;
+      LagKernel lagged =
+          parentKernels[n] == null
+              ? null
+              : parentKernels[n].substitute(lovis, position, parent.getTopology());
+      ComputeMD.computeLoviNode(lovis, lagged, parent, plan, node, row);
+    }
+    return row;
+  }
+
+  /** Computes the variants in order, handing each row to {@code consumer} as soon as it is done. */
+  public void scan(List<Mutation> mutations, BiConsumer<Mutation, double[]> consumer) {
+    for (Mutation mutation : mutations) {
+      consumer.accept(mutation, compute(mutation));
+    }
+  }
+}
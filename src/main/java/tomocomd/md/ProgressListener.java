@@ -0,0 +1,12 @@
+package tomocomd.md;
+
+/**
+ * Receives the progress of a batch job. Reports come from the worker finishing a tile, at most once
+ * per {@link StarpepEngine#REPORT_INTERVAL_NANOS}, and from the submitting thread when the job
+ * ends; a listener should return quickly.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+  void onProgress(BatchProgress progress);
+}
@@ -0,0 +1,94 @@
+package tomocomd.md;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import org.apache.commons.math3.linear.RealMatrix;
+import tomocomd.io.SaveDescriptorValue;
+import tomocomd.model.Peptide;
+
+/**
+ * Files of {@link SaveDescriptorValue} rows without header, as written by the shard workers and the
+ * journal of a {@link CheckpointedRun}, in {@link SaveDescriptorValue#CHARSET}. Files are written
+ * under a {@code .partial} name and renamed once complete, so a file that exists under its name is
+ * whole.
+ */
+final class RowFiles {
+
+  private RowFiles() {}
+
+  /** Writes the rows of {@code peptides}, {@code columns} values each. */
+  static void write(Path file, List<Peptide> peptides, RealMatrix rows, int columns)
+      throws IOException {
+    try (Writer writer = new Writer(file)) {
+      writer.append(peptides, rows, columns);
+      writer.commit();
+    }
+  }
+
+  /** Writes the header followed by the row files byte for byte, in order. */
+  static void merge(List<String> headings, List<Path> parts, Path output) throws IOException {
+    Path partial = partial(output);
+    try (OutputStream out = Files.newOutputStream(partial)) {
+      PrintWriter pw = new PrintWriter(new OutputStreamWriter(out, SaveDescriptorValue.CHARSET));
+      SaveDescriptorValue.printHeader(pw, headings);
+      pw.flush();
+      for (Path part : parts) {
+        Files.copy(part, out);
+      }
+    }
+    Files.move(
+        partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  static Path partial(Path file) {
+    return file.resolveSibling(file.getFileName() + ".partial");
+  }
+
+  /**
+   * Row file written in parts, e.g. one chunk of results at a time. It appears under its name on
+   * {@link #commit}; closed before, it leaves only the partial file.
+   */
+  static final class Writer implements Closeable {
+
+    private final Path file;
+    private final Path partial;
+    private final PrintWriter pw;
+    private boolean committed;
+
+    Writer(Path file) throws IOException {
+      this.file = file;
+      this.partial = partial(file);
+      this.pw = new PrintWriter(Files.newBufferedWriter(partial, SaveDescriptorValue.CHARSET));
+    }
+
+    void append(List<Peptide> peptides, RealMatrix rows, int columns) {
+      for (int r = 0; r < peptides.size(); r++) {
+        SaveDescriptorValue.printRow(pw, peptides.get(r).getIdPeptide(), rows.getRow(r), columns);
+      }
+    }
+
+    void commit() throws IOException {
+      pw.close();
+      if (pw.checkError()) {
+        throw new IOException("Error writing " + partial);
+      }
+      Files.move(
+          partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      committed = true;
+    }
+
+    @Override
+    public void close() {
+      if (!committed) {
+        pw.close();
+      }
+    }
+  }
+}
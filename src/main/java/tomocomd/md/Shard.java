@@ -0,0 +1,128 @@
+package tomocomd.md;
+
+import java.util.ArrayList;
+import java.util.List;
+import tomocomd.StartpepException;
+import tomocomd.model.Peptide;
+
+/**
+ * Range {@code [from, to)} of the peptides of a sequence file, computed by one worker process of a
+ * {@link ShardCoordinator}. Shards are contiguous and in input order, so concatenating their rows
+ * gives the rows of the whole file.
+ */
+public final class Shard {
+
+  private final int index;
+  private final int from;
+  private final int to;
+  private final long residues;
+
+  Shard(int index, int from, int to, long residues) {
+    this.index = index;
+    this.from = from;
+    this.to = to;
+    this.residues = residues;
+  }
+
+  /** At most {@code shards} shards of as equal a number of peptides as possible. */
+  public static List<Shard> byCount(List<Peptide> peptides, int shards) {
+    return byCount(lengths(peptides), shards);
+  }
+
+  /**
+   * As {@link #byCount(List, int)}, from the peptide lengths, e.g. of {@link
+   * tomocomd.io.ReadPeptideFile#readPeptideLengths}.
+   */
+  public static List<Shard> byCount(int[] lengths, int shards) {
+    if (shards < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get("Invalid shards " + shards);
+    }
+    List<Shard> result = new ArrayList<>(shards);
+    int from = 0;
+    for (int s = 0; s < shards && from < lengths.length; s++) {
+      int to = (int) ((long) lengths.length * (s + 1) / shards);
+      if (to > from) {
+        result.add(new Shard(result.size(), from, to, sum(lengths, from, to)));
+        from = to;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Shards of at most {@code residueBudget} residues, but at least one peptide each, so a peptide
+   * longer than the budget makes a shard of its own.
+   */
+  public static List<Shard> byResidues(List<Peptide> peptides, long residueBudget) {
+    return byResidues(lengths(peptides), residueBudget);
+  }
+
+  /** As {@link #byResidues(List, long)}, from the peptide lengths. */
+  public static List<Shard> byResidues(int[] lengths, long residueBudget) {
+    if (residueBudget < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Invalid residue budget " + residueBudget);
+    }
+    List<Shard> result = new ArrayList<>();
+    int from = 0;
+    while (from < lengths.length) {
+      int to = from;
+      long residues = 0;
+      while (to < lengths.length && (to == from || residues + lengths[to] <= residueBudget)) {
+        residues += lengths[to++];
+      }
+      result.add(new Shard(result.size(), from, to, residues));
+      from = to;
+    }
+    return result;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public int getFrom() {
+    return from;
+  }
+
+  public int getTo() {
+    return to;
+  }
+
+  public int size() {
+    return to - from;
+  }
+
+  public long getResidues() {
+    return residues;
+  }
+
+  /**
+   * Name of the rows file of the shard; it names the range, so a re-planned run never reuses it.
+   */
+  public String getFileName() {
+    return String.format("shard-%05d-%d-%d.csv", index, from, to);
+  }
+
+  @Override
+  public String toString() {
+    return "Shard " + index + " [" + from + ", " + to + ")";
+  }
+
+  private static int[] lengths(List<Peptide> peptides) {
+    int[] lengths = new int[peptides.size()];
+    int i = 0;
+    for (Peptide peptide : peptides) {
+      lengths[i++] = peptide.getLength();
+    }
+    return lengths;
+  }
+
+  private static long sum(int[] lengths, int from, int to) {
+    long sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += lengths[i];
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,236 @@
+package tomocomd.md;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import tomocomd.StartpepException;
+import tomocomd.math.DoubleKernels;
+
+/**
+ * Computes a sequence file in {@link Shard}s, each by a {@link ShardWorker} process with its own
+ * heap, and merges their rows into one file in input order. Shard results are kept in a work
+ * directory under a name of their range: a shard whose file exists is done, so a rerun or a retry
+ * only launches the missing shards. A failed shard is retried up to {@link #setMaxAttempts} times.
+ *
+ * <p>The merged file is the header followed by the shard files byte for byte, in shard order; its
+ * content depends only on the input and the headings, not on the number of workers or the order in
+ * which shards finish. A manifest in the work directory records the SHA-256 of the sequence file
+ * and of the headings and the shard files of the run; the shard files of a run of other inputs are
+ * deleted.
+ */
+public final class ShardCoordinator {
+
+  private static final Logger logger = Logger.getLogger(ShardCoordinator.class.getName());
+
+  static final String HEADINGS_FILE = "headings.txt";
+  static final String MANIFEST = "manifest.properties";
+
+  private final String seqFilePath;
+  private final List<String> headings;
+  private final Path workDir;
+  private int workers = 1;
+  private int workerParallelism = 1;
+  private int maxAttempts = 3;
+  private List<String> jvmOptions = Collections.emptyList();
+
+  public ShardCoordinator(String seqFilePath, DescriptorPlan plan, Path workDir) {
+    this.seqFilePath = seqFilePath;
+    this.headings = plan.getHeadings();
+    this.workDir = workDir;
+  }
+
+  /** Worker processes running at a time. */
+  public void setWorkers(int workers) {
+    if (workers < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get("Invalid workers " + workers);
+    }
+    this.workers = workers;
+  }
+
+  /** Threads of each worker process. */
+  public void setWorkerParallelism(int workerParallelism) {
+    if (workerParallelism < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Invalid worker parallelism " + workerParallelism);
+    }
+    this.workerParallelism = workerParallelism;
+  }
+
+  /** Launches of a shard before the run fails. */
+  public void setMaxAttempts(int maxAttempts) {
+    if (maxAttempts < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Invalid attempts " + maxAttempts);
+    }
+    this.maxAttempts = maxAttempts;
+  }
+
+  /** Options of the worker JVMs, e.g. {@code -Xmx4g}. */
+  public void setJvmOptions(List<String> jvmOptions) {
+    this.jvmOptions = List.copyOf(jvmOptions);
+  }
+
+  /** Computes the missing shards and merges all of them into {@code output}. */
+  public void run(List<Shard> shards, Path output) throws IOException, InterruptedException {
+    Files.createDirectories(workDir);
+    prepareWorkDir(shards);
+
+    Deque<Shard> pending = new ArrayDeque<>();
+    for (Shard shard : shards) {
+      if (!Files.exists(shardFile(shard))) {
+        pending.add(shard);
+      }
+    }
+    Map<Shard, Integer> attempts = new HashMap<>();
+    Map<Shard, Process> running = new HashMap<>();
+    try {
+      while (!pending.isEmpty() || !running.isEmpty()) {
+        while (running.size() < workers && !pending.isEmpty()) {
+          Shard shard = pending.poll();
+          attempts.merge(shard, 1, Integer::sum);
+          running.put(shard, launch(shard));
+        }
+        awaitAny(running, pending, attempts);
+      }
+    } finally {
+      for (Process process : running.values()) {
+        process.destroyForcibly();
+      }
+    }
+    merge(shards, output);
+  }
+
+  /** Command line of the worker of a shard. */
+  List<String> workerCommand(Shard shard) {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    // after the options of the caller, so the workers compute with the kernels of the manifest
+    command.addAll(DoubleKernels.jvmOptions());
+    command.add("-D" + ShardWorker.KERNELS_PROPERTY + "=" + DoubleKernels.name());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ShardWorker.class.getName());
+    command.add(seqFilePath);
+    command.add(workDir.resolve(HEADINGS_FILE).toString());
+    command.add(Integer.toString(shard.getFrom()));
+    command.add(Integer.toString(shard.getTo()));
+    command.add(shardFile(shard).toString());
+    command.add(Integer.toString(workerParallelism));
+    return command;
+  }
+
+  Path shardFile(Shard shard) {
+    return workDir.resolve(shard.getFileName());
+  }
+
+  private Process launch(Shard shard) throws IOException {
+    File log = workDir.resolve(shard.getFileName() + ".log").toFile();
+    return new ProcessBuilder(workerCommand(shard))
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+        .start();
+  }
+
+  /** Waits for a worker to end, and requeues its shard if it failed. */
+  private void awaitAny(
+      Map<Shard, Process> running, Deque<Shard> pending, Map<Shard, Integer> attempts)
+      throws InterruptedException {
+    while (true) {
+      Iterator<Map.Entry<Shard, Process>> it = running.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Shard, Process> entry = it.next();
+        Shard shard = entry.getKey();
+        Process process = entry.getValue();
+        if (process.isAlive()) {
+          continue;
+        }
+        it.remove();
+        if (process.exitValue() == 0 && Files.exists(shardFile(shard))) {
+          return;
+        }
+        int attempt = attempts.get(shard);
+        logger.log(
+            Level.WARNING,
+            "{0} failed with status {1}, attempt {2} of {3}",
+            new Object[] {shard, process.exitValue(), attempt, maxAttempts});
+        if (attempt >= maxAttempts) {
+          throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+              shard + " failed " + attempt + " times, see " + shard.getFileName() + ".log");
+        }
+        pending.add(shard);
+        return;
+      }
+      running.values().iterator().next().waitFor(100, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Writes the headings for the workers and the manifest of the run. Shard files of a run of
+   * another sequence file, headings or shards are stale and deleted.
+   */
+  private void prepareWorkDir(List<Shard> shards) throws IOException {
+    Properties manifest = new Properties();
+    manifest.setProperty("inputHash", Digests.of(Paths.get(seqFilePath)));
+    manifest.setProperty("planHash", Digests.of(headings));
+    manifest.setProperty("kernels", DoubleKernels.name());
+    StringBuilder names = new StringBuilder();
+    for (Shard shard : shards) {
+      if (names.length() > 0) {
+        names.append(',');
+      }
+      names.append(shard.getFileName());
+    }
+    manifest.setProperty("shards", names.toString());
+
+    Path file = workDir.resolve(MANIFEST);
+    if (Files.exists(file)) {
+      Properties previous = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        previous.load(in);
+      }
+      if (previous.equals(manifest)) {
+        return;
+      }
+      logger.log(Level.INFO, "Work directory of other inputs, starting over");
+    }
+    try (DirectoryStream<Path> stale = Files.newDirectoryStream(workDir, "shard-*.csv")) {
+      for (Path shardFile : stale) {
+        Files.delete(shardFile);
+      }
+    }
+    Files.write(workDir.resolve(HEADINGS_FILE), headings, StandardCharsets.UTF_8);
+    Path partial = RowFiles.partial(file);
+    try (OutputStream out = Files.newOutputStream(partial)) {
+      manifest.store(out, "Startpep sharded run");
+    }
+    Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void merge(List<Shard> shards, Path output) throws IOException {
+    List<Path> parts = new ArrayList<>(shards.size());
+    for (Shard shard : shards) {
+      parts.add(shardFile(shard));
+    }
+    RowFiles.merge(headings, parts, output);
+  }
+}
@@ -0,0 +1,86 @@
+package tomocomd.md;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import tomocomd.StartpepException;
+import tomocomd.io.ReadPeptideFile;
+import tomocomd.io.SaveDescriptorValue;
+import tomocomd.math.DoubleKernels;
+import tomocomd.model.Peptide;
+
+/**
+ * Worker process of a {@link ShardCoordinator}: computes the rows of one shard of a sequence file
+ * and writes them, without header, as {@link SaveDescriptorValue} lines. Rows are computed and
+ * written {@link #CHUNK} peptides at a time, so the heap holds one chunk of results, and the file
+ * appears under its final name only once complete.
+ *
+ * <p>Arguments: {@code <sequence file> <headings file> <from> <to> <output> [parallelism]}. The
+ * exit status is {@code 0} on success. A worker whose {@link DoubleKernels} are not the ones named
+ * by {@code -Dstarpep.kernels} fails.
+ */
+public final class ShardWorker {
+
+  private static final Logger logger = Logger.getLogger(ShardWorker.class.getName());
+
+  /** Peptides computed and written at a time. */
+  static final int CHUNK = 256;
+
+  /** {@link DoubleKernels} implementation the coordinator expects the worker to run. */
+  static final String KERNELS_PROPERTY = "starpep.kernels";
+
+  private ShardWorker() {}
+
+  public static void main(String[] args) {
+    if (args.length < 5 || args.length > 6) {
+      logger.log(
+          Level.SEVERE,
+          "Usage: ShardWorker <sequence file> <headings file> <from> <to> <output> [parallelism]");
+      System.exit(2);
+    }
+    try {
+      int parallelism =
+          args.length == 6 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+      run(
+          args[0],
+          Paths.get(args[1]),
+          Integer.parseInt(args[2]),
+          Integer.parseInt(args[3]),
+          Paths.get(args[4]),
+          parallelism);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "Shard failed", e);
+      System.exit(1);
+    }
+    System.exit(0);
+  }
+
+  static void run(
+      String seqFilePath, Path headingsFile, int from, int to, Path output, int parallelism)
+      throws IOException {
+    String kernels = System.getProperty(KERNELS_PROPERTY, DoubleKernels.name());
+    if (!kernels.equals(DoubleKernels.name())) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Worker runs " + DoubleKernels.name() + " instead of " + kernels);
+    }
+    List<String> headings = Files.readAllLines(headingsFile, StandardCharsets.UTF_8);
+    // only the peptides of the shard are built; an array list, as containers are linked lists
+    List<Peptide> shard = new ArrayList<>(ReadPeptideFile.readPeptideFile(seqFilePath, from, to));
+
+    try (StarpepEngine engine = new StarpepEngine(parallelism);
+        RowFiles.Writer writer = new RowFiles.Writer(output)) {
+      DescriptorPlan plan = engine.plan(headings);
+      for (int start = 0; start < shard.size(); start += CHUNK) {
+        List<Peptide> chunk = shard.subList(start, Math.min(shard.size(), start + CHUNK));
+        writer.append(chunk, engine.compute(chunk, plan), plan.size());
+      }
+      writer.commit();
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package tomocomd.md;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import tomocomd.StartpepException;
+import tomocomd.md.properties.AminoAcidPropertyCatalog;
+import tomocomd.model.Peptide;
+
+/**
+ * Long-lived descriptor computation service. An engine owns, or borrows, one executor and runs
+ * every {@code compute} call on it, so threads, their per-thread aggregation scratch and the
+ * compiled plans of heading sets stay warm from one job to the next. Any number of threads may
+ * submit jobs concurrently; each call blocks until its own matrix is complete.
+ *
+ * <p>An engine built from a parallelism owns its {@link ForkJoinPool} and shuts it down on {@link
+ * #close()}; an executor handed to the engine is left running. Jobs run as work-stealing tiles on a
+ * {@link ForkJoinPool}, and as a list of tiles on any other executor.
+ */
+public final class StarpepEngine implements AutoCloseable {
+
+  private static final Logger logger = Logger.getLogger(StarpepEngine.class.getName());
+
+  /**
+   * Descriptors of the compiled plans kept for heading lists; the cache is dropped whole when it
+   * fills up, so one engine holds at most this many compiled specs however many lists it sees.
+   */
+  static final int MAX_CACHED_DESCRIPTORS = 1 << 18;
+
+  /** Least time between two progress reports of a job. */
+  public static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final AminoAcidPropertyCatalog catalog;
+  private volatile CostModel costModel = CostModel.getDefault();
+  private final Map<List<String>, DescriptorPlan> plans = new ConcurrentHashMap<>();
+  private final AtomicInteger cachedDescriptors = new AtomicInteger();
+  private volatile boolean closed;
+
+  /** Engine with a pool of one worker per available processor. */
+  public StarpepEngine() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public StarpepEngine(int parallelism) {
+    this(new ForkJoinPool(parallelism), true, AminoAcidPropertyCatalog.getDefault());
+  }
+
+  /** Engine running on an executor owned by the caller, which {@link #close()} leaves running. */
+  public StarpepEngine(ExecutorService executor) {
+    this(executor, AminoAcidPropertyCatalog.getDefault());
+  }
+
+  public StarpepEngine(ExecutorService executor, AminoAcidPropertyCatalog catalog) {
+    this(executor, false, catalog);
+  }
+
+  private StarpepEngine(
+      ExecutorService executor, boolean ownsExecutor, AminoAcidPropertyCatalog catalog) {
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.catalog = catalog;
+  }
+
+  public AminoAcidPropertyCatalog getCatalog() {
+    return catalog;
+  }
+
+  public CostModel getCostModel() {
+    return costModel;
+  }
+
+  /** Model sizing the tiles of the next jobs and ordering their peptides, largest cost first. */
+  public void setCostModel(CostModel costModel) {
+    this.costModel = costModel;
+  }
+
+  /** Replaces the cost model with one measured on this machine, and returns it. */
+  public CostModel calibrate() {
+    ensureOpen();
+    costModel = CostModel.calibrate();
+    return costModel;
+  }
+
+  /** Threads the engine computes on. */
+  public int getParallelism() {
+    if (executor instanceof ForkJoinPool) {
+      return ((ForkJoinPool) executor).getParallelism();
+    }
+    if (executor instanceof ThreadPoolExecutor) {
+      return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Wall time of a job predicted by the cost model, for a scheduler to size the nodes it requests:
+   * the processor time of the job spread over the engine threads, and at least the time of its
+   * longest row spread over one thread per LOVI node.
+   */
+  public Duration predictRuntime(List<Peptide> peptides, DescriptorPlan plan) {
+    CostModel model = costModel;
+    double nanos = model.predictNanos(peptides, plan) / getParallelism();
+    int longest = 0;
+    for (Peptide peptide : peptides) {
+      longest = Math.max(longest, peptide.getLength());
+    }
+    int nodes = Math.max(1, Math.min(plan.getLoviNodes().size(), getParallelism()));
+    nanos = Math.max(nanos, model.rowCost(plan, longest) / nodes);
+    return Duration.ofNanos((long) Math.ceil(nanos));
+  }
+
+  /**
+   * Plan of a heading list, compiled once per engine. A list is looked up as it is and copied only
+   * when its plan is compiled; callers holding a plan should pass it to {@code compute} instead.
+   */
+  public DescriptorPlan plan(Collection<String> headings) {
+    DescriptorPlan plan = plans.get(headings instanceof List ? headings : List.copyOf(headings));
+    if (plan == null) {
+      if (cachedDescriptors.addAndGet(headings.size()) > MAX_CACHED_DESCRIPTORS) {
+        plans.clear();
+        cachedDescriptors.set(headings.size());
+      }
+      plan = plans.computeIfAbsent(List.copyOf(headings), DescriptorPlan::compile);
+    }
+    return plan;
+  }
+
+  /** Descriptors of the plans cached now. */
+  int cachedDescriptors() {
+    int descriptors = 0;
+    for (DescriptorPlan plan : plans.values()) {
+      descriptors += plan.size();
+    }
+    return descriptors;
+  }
+
+  public RealMatrix compute(List<Peptide> peptides, Collection<String> headings) {
+    return compute(peptides, plan(headings));
+  }
+
+  /** Peptides x plan descriptors, one row per peptide in order. */
+  public RealMatrix compute(List<Peptide> peptides, DescriptorPlan plan) {
+    return compute(peptides, plan, null, new CancellationToken()).getResults();
+  }
+
+  /**
+   * Peptides x plan descriptors, reporting the progress to {@code listener} (may be {@code null}).
+   * Once {@code token} is cancelled, the tiles not yet started are skipped and the result holds the
+   * rows completed so far.
+   */
+  public BatchResult compute(
+      List<Peptide> peptides,
+      DescriptorPlan plan,
+      ProgressListener listener,
+      CancellationToken token) {
+    double[][] rows = new double[peptides.size()][plan.size()];
+    BatchJob job = newJob(peptides, plan, rows, token, listener);
+    run(job);
+    job.report();
+    return job.result(new Array2DRowRealMatrix(rows, false));
+  }
+
+  /** Row of a single peptide, its LOVI nodes spread over the workers. */
+  public double[] compute(Peptide peptide, DescriptorPlan plan) {
+    return compute(List.of(peptide), plan).getRow(0);
+  }
+
+  BatchJob newJob(
+      List<Peptide> peptides,
+      DescriptorPlan plan,
+      double[][] rows,
+      CancellationToken token,
+      ProgressListener listener) {
+    return new BatchJob(
+        peptides, plan, catalog, rows, token, listener, REPORT_INTERVAL_NANOS, costModel);
+  }
+
+  /**
+   * Runs a job on the engine executor until its tiles are done or skipped. The first failing tile
+   * stops the job and is rethrown; the calling thread is not interrupted.
+   */
+  void run(BatchJob job) {
+    ensureOpen();
+    job.start();
+    try {
+      if (executor instanceof ForkJoinPool) {
+        ((ForkJoinPool) executor).invoke(job.root());
+      } else {
+        for (Future<Void> future : executor.invokeAll(job.leaves())) {
+          future.get();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
+    } catch (ExecutionException | RuntimeException e) {
+      throw failure(job, e instanceof ExecutionException ? e.getCause() : e);
+    }
+    if (job.getFailure() != null) {
+      throw failure(job, job.getFailure());
+    }
+  }
+
+  /** The first failure of the job, which the executor may have wrapped or replaced. */
+  private static StartpepException failure(BatchJob job, Throwable thrown) {
+    Throwable cause = job.getFailure() != null ? job.getFailure() : thrown;
+    if (cause instanceof StartpepException) {
+      return (StartpepException) cause;
+    }
+    return StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(cause);
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /** Shuts down an owned executor, waiting for running jobs; does nothing when called again. */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    plans.clear();
+    if (!ownsExecutor) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+          logger.log(Level.SEVERE, "Executor did not terminate in the expected time.");
+        }
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get("Engine closed");
+    }
+  }
+}
@@ -1,11 +1,16 @@
 package tomocomd.md;
 
 import java.io.IOException;
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.commons.math3.linear.RealMatrix;
 import tomocomd.StartpepException;
 import tomocomd.io.ReadPeptideFile;
+import tomocomd.model.Peptide;
 import tomocomd.model.PeptideContainer;
 
 public class StartpepComputer {
@@ -15,9 +20,20 @@ public class StartpepComputer {
   }
 
   public static RealMatrix compute(Set<String> pDSet, String seqFilePath) throws StartpepException {
+    return compute(DescriptorPlan.compile(pDSet), seqFilePath);
+  }
+
+  /** Computes the descriptors with ordinals in {@code [from, to)} of a descriptor space. */
+  public static RealMatrix compute(DescriptorSpace space, int from, int to, String seqFilePath)
+      throws StartpepException {
+    return compute(space.plan(from, to), seqFilePath);
+  }
+
+  public static RealMatrix compute(DescriptorPlan plan, String seqFilePath)
+      throws StartpepException {
     try {
       PeptideContainer peptides = ReadPeptideFile.readPeptideFile(seqFilePath);
-      return computeForSeqContainer(pDSet, peptides);
+      return computeForSeqContainer(plan, peptides);
     } catch (IOException e) {
       throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(e);
     } catch (StartpepException e) {
@@ -28,10 +44,77 @@ public class StartpepComputer {
     }
   }
 
+  /**
+   * Sliding-window profiles (windows x descriptors) of every protein of a sequence file, keyed by
+   * protein id in file order. See {@link WindowProfile}.
+   */
+  public static Map<String, RealMatrix> computeWindows(
+      DescriptorPlan plan, String seqFilePath, int width, int stride) throws StartpepException {
+    try {
+      PeptideContainer proteins = ReadPeptideFile.readPeptideFile(seqFilePath);
+      Map<String, RealMatrix> profiles = new LinkedHashMap<>();
+      for (Peptide protein : proteins) {
+        profiles.put(protein.getIdPeptide(), WindowProfile.compute(protein, plan, width, stride));
+      }
+      return profiles;
+    } catch (IOException e) {
+      throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(e);
+    } catch (StartpepException e) {
+      throw e;
+    } catch (Exception e) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
+    }
+  }
+
+  /**
+   * Computes a sequence file in {@code shards} shards of about the same number of peptides, on
+   * {@code workers} local worker processes, and merges their rows into a CSV file in input order.
+   * Shards already computed in {@code workDir} by an earlier run are not recomputed. See {@link
+   * ShardCoordinator} for residue-budget shards and worker settings.
+   */
+  public static void computeSharded(
+      DescriptorPlan plan,
+      String seqFilePath,
+      String outputPath,
+      Path workDir,
+      int shards,
+      int workers)
+      throws StartpepException, InterruptedException {
+    try {
+      ShardCoordinator coordinator = new ShardCoordinator(seqFilePath, plan, workDir);
+      coordinator.setWorkers(workers);
+      coordinator.setWorkerParallelism(
+          Math.max(1, Runtime.getRuntime().availableProcessors() / workers));
+      // shards need the lengths only, the workers build the peptides
+      int[] lengths = ReadPeptideFile.readPeptideLengths(seqFilePath);
+      coordinator.run(Shard.byCount(lengths, shards), Paths.get(outputPath));
+    } catch (IOException e) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
+    }
+  }
+
+  /**
+   * Computes a sequence file into a CSV file, journaling finished blocks of rows in {@code
+   * journalDir}. Rerun with the same inputs after an interruption, it resumes from the last
+   * finished block and writes the same file. See {@link CheckpointedRun}.
+   */
+  public static void computeJournaled(
+      DescriptorPlan plan, String seqFilePath, String outputPath, Path journalDir)
+      throws StartpepException {
+    try {
+      new CheckpointedRun(seqFilePath, plan, journalDir).run(Paths.get(outputPath));
+    } catch (IOException e) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(e);
+    }
+  }
+
   public static RealMatrix computeForSeqContainer(Set<String> pDSet, PeptideContainer peptides)
       throws StartpepException, InterruptedException {
-    ComputeBatch computeBatch = new ComputeBatch(peptides.size(), pDSet.size());
-    computeBatch.computeInBatch(peptides, new LinkedList<>(pDSet));
-    return computeBatch.getResults();
+    return computeForSeqContainer(DescriptorPlan.compile(pDSet), peptides);
+  }
+
+  public static RealMatrix computeForSeqContainer(DescriptorPlan plan, PeptideContainer peptides)
+      throws StartpepException, InterruptedException {
+    return new StarpepEngine(ForkJoinPool.commonPool()).compute(peptides, plan);
   }
 }
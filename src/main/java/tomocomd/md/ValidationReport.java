@@ -0,0 +1,52 @@
+package tomocomd.md;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import tomocomd.model.DescriptorSpec;
+
+/**
+ * Outcome of {@link HeaderValidator#validate(java.util.Collection)}: the valid descriptors in order
+ * of first occurrence, the invalid headings with the reason they were rejected, and the headings
+ * repeating an earlier descriptor.
+ */
+public final class ValidationReport {
+  private final List<DescriptorSpec> valid;
+  private final Map<String, String> invalid;
+  private final List<String> duplicates;
+
+  ValidationReport(
+      List<DescriptorSpec> valid, Map<String, String> invalid, List<String> duplicates) {
+    this.valid = Collections.unmodifiableList(valid);
+    this.invalid = Collections.unmodifiableMap(invalid);
+    this.duplicates = Collections.unmodifiableList(duplicates);
+  }
+
+  public List<DescriptorSpec> getValid() {
+    return valid;
+  }
+
+  /** Invalid headings, in input order, mapped to the reason they were rejected. */
+  public Map<String, String> getInvalid() {
+    return invalid;
+  }
+
+  public List<String> getDuplicates() {
+    return duplicates;
+  }
+
+  public boolean isValid() {
+    return invalid.isEmpty();
+  }
+
+  /** Plan over the valid, deduplicated descriptors. */
+  public DescriptorPlan toPlan() {
+    return DescriptorPlan.of(valid);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d valid, %d invalid, %d duplicates", valid.size(), invalid.size(), duplicates.size());
+  }
+}
@@ -0,0 +1,111 @@
+package tomocomd.md;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import tomocomd.StartpepException;
+import tomocomd.md.aggregation.ElectroTopologicalState;
+import tomocomd.md.aggregation.Entropy;
+import tomocomd.md.aggregation.LagKernel;
+import tomocomd.md.aggregation.RollingWindow;
+import tomocomd.md.aggregation.VectorSummary;
+import tomocomd.md.properties.AminoAcidPropertyCatalog;
+import tomocomd.md.properties.LoviCache;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.LinearTopology;
+import tomocomd.model.Peptide;
+
+/**
+ * Descriptor profile of a protein along sliding windows: row {@code r} holds the plan computed on
+ * the linear peptide {@code [r * stride, r * stride + width)}, as {@link
+ * ComputeMD#computeInBatch(Peptide, DescriptorPlan)} of that fragment would.
+ *
+ * <p>No fragment peptide is built. LOVI vectors and AC/GV/TS lag terms are computed once over the
+ * whole protein, since the vector of a window is a slice of them, and a {@link RollingWindow} per
+ * classic vector updates running sums, composition counts and sorted order as residues enter and
+ * leave. ES and MIC depend on the whole fragment and are computed per window.
+ */
+public final class WindowProfile {
+
+  private WindowProfile() {}
+
+  /** Number of windows of a protein of {@code length} residues. */
+  public static int windows(int length, int width, int stride) {
+    return length < width ? 0 : (length - width) / stride + 1;
+  }
+
+  public static RealMatrix compute(Peptide protein, DescriptorPlan plan, int width, int stride) {
+    return compute(protein, plan, width, stride, AminoAcidPropertyCatalog.getDefault());
+  }
+
+  public static RealMatrix compute(
+      Peptide protein,
+      DescriptorPlan plan,
+      int width,
+      int stride,
+      AminoAcidPropertyCatalog catalog) {
+    if (width < 1 || stride < 1) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Invalid window " + width + " with stride " + stride);
+    }
+    int length = protein.getLength();
+    int windows = windows(length, width, stride);
+    if (windows == 0) {
+      return new Array2DRowRealMatrix(); // a matrix cannot have zero rows
+    }
+    double[][] profile = new double[windows][plan.size()];
+
+    LoviCache lovisCache = new LoviCache(protein, catalog);
+    // windows are linear fragments whatever the bonds of the protein
+    LinearTopology chain = new LinearTopology(length);
+    LinearTopology fragment = new LinearTopology(width);
+    for (DescriptorPlan.LoviNode node : plan.getLoviNodes()) {
+      double[] lovis = lovisCache.get(node.getProperty(), node.getGroup());
+      LagKernel lagged = ComputeMD.computeLagKernel(lovis, chain, node);
+      for (DescriptorPlan.ClassicNode classic : node.getClassics()) {
+        CLASSIC_OPERATORS operator = classic.getClassic();
+        if (Objects.isNull(operator) || operator.isLagged()) {
+          double[] source =
+              Objects.isNull(operator) ? lovis : lagged.get(operator, classic.getLag());
+          int size = Objects.isNull(operator) ? width : Math.max(0, width - classic.getLag());
+          if (size == 0) {
+            // no pair of a window is far enough apart: every window has the empty lag vector
+            VectorSummary empty = new VectorSummary(new double[0]);
+            for (int r = 0; r < windows; r++) {
+              ComputeMD.computeColumns(empty, plan, classic, profile[r]);
+            }
+            continue;
+          }
+          RollingWindow window = new RollingWindow(source, size);
+          for (int r = 0; r < windows; r++) {
+            window.moveTo(r * stride);
+            ComputeMD.computeColumns(window, plan, classic, profile[r]);
+          }
+        } else {
+          for (int r = 0; r < windows; r++) {
+            double[] slice = new double[width];
+            System.arraycopy(lovis, r * stride, slice, 0, width);
+            double[] vector =
+                operator == CLASSIC_OPERATORS.ES
+                    ? ElectroTopologicalState.compute(slice, fragment)
+                    : Entropy.meanInformation(slice);
+            ComputeMD.computeColumns(new VectorSummary(vector), plan, classic, profile[r]);
+          }
+        }
+      }
+    }
+    return new Array2DRowRealMatrix(profile, false);
+  }
+
+  /** Profiles of several proteins, in order. */
+  public static List<RealMatrix> compute(
+      List<Peptide> proteins, DescriptorPlan plan, int width, int stride) {
+    List<RealMatrix> profiles = new ArrayList<>(proteins.size());
+    for (Peptide protein : proteins) {
+      profiles.add(compute(protein, plan, width, stride));
+    }
+    return profiles;
+  }
+}
@@ -1,11 +1,13 @@
 package tomocomd.md.aggregation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import tomocomd.StartpepException;
+import tomocomd.model.ChoquetParameters;
 import tomocomd.model.SINGLETON_METHODS;
 import tomocomd.model.SORTING_METHOD;
 
@@ -13,97 +15,75 @@ public class Choquet {
 
   private static final Logger logger = Logger.getLogger(Choquet.class.getName());
 
-  public static double validateAndCompute(double[] origLovis, String headChoquet) {
-    String choquetConf =
-        headChoquet.substring(headChoquet.indexOf('[') + 1, headChoquet.indexOf(']'));
-    String[] conf = choquetConf.split(";");
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
-    try {
-      SORTING_METHOD sort = SORTING_METHOD.fromCode(conf[0]);
-      double lValue = Double.parseDouble(conf[1]);
-      SINGLETON_METHODS method = SINGLETON_METHODS.fromCode(conf[2]);
-      double alfa = Double.parseDouble(conf[3]);
-      return choquetIntegral(origLovis, method, sort, lValue, alfa);
-    } catch (StartpepException e) {
-      throw e;
-    } catch (Exception e) {
-      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
-          "Error in choquet configuration: " + e);
-    }
+  public static double validateAndCompute(double[] origLovis, String headChoquet) {
+    return compute(origLovis, ChoquetParameters.parse(headChoquet));
   }
 
-  private static double choquetIntegral(
-      double[] oriLovis,
-      SINGLETON_METHODS method,
-      SORTING_METHOD sortingMethod,
-      double lValue,
-      double alfa) {
-    if (Objects.isNull(oriLovis)) return Double.NaN;
-    if (oriLovis.length == 0) return Double.NaN;
+  public static double compute(double[] origLovis, ChoquetParameters parameters) {
+    return computeAll(origLovis, Collections.singletonList(parameters))[0];
+  }
 
-    boolean hasNegativeLoves = false;
-    Double[] lovis = new Double[oriLovis.length];
-    for (int i = 0; i < oriLovis.length; i++) {
-      lovis[i] = oriLovis[i];
-      if (lovis[i] < 0) {
-        hasNegativeLoves = true;
-      }
+  /**
+   * Choquet integrals of one vector for several configurations. The vector is sorted once, the
+   * singleton measures and their prefix and suffix sums are computed once per (direction, method,
+   * alpha), and each configuration then costs one pass over the vector.
+   */
+  public static double[] computeAll(double[] origLovis, List<ChoquetParameters> parameters) {
+    if (Objects.isNull(origLovis) || origLovis.length == 0) {
+      double[] values = new double[parameters.size()];
+      Arrays.fill(values, Double.NaN);
+      return values;
     }
+    return computeAll(SortedView.of(origLovis), parameters);
+  }
 
-    if (hasNegativeLoves) {
-      return Double.NaN;
+  /** Choquet integrals of one vector, read in both directions from its shared sorted view. */
+  public static double[] computeAll(SortedView view, List<ChoquetParameters> parameters) {
+    double[] values = new double[parameters.size()];
+    if (view.size() == 0 || view.hasNegative()) {
+      Arrays.fill(values, Double.NaN);
+      return values;
     }
 
-    return compute(lovis, method, sortingMethod, lValue, alfa);
+    int dim = view.size();
+    Scratch scratch = SCRATCH.get();
+    scratch.reset(dim);
+    for (int c = 0; c < values.length; c++) {
+      ChoquetParameters configuration = parameters.get(c);
+      boolean desc = configuration.getSort() == SORTING_METHOD.DESCENDING;
+      // DESCENDING orders the vector from minimum to maximum
+      double[] lovis = desc ? view.ascending() : view.descending();
+      Measures measures =
+          scratch.measures(
+              lovis, configuration.getSort(), configuration.getMethod(), configuration.getAlfa());
+      values[c] =
+          integral(
+              lovis,
+              dim,
+              measures.singleton,
+              measures.prefix,
+              measures.suffix,
+              configuration.getLambda(),
+              desc);
+    }
+    return values;
   }
 
-  private static double compute(
-      Double[] lovis,
-      SINGLETON_METHODS method,
-      SORTING_METHOD sortingMethod,
+  private static double integral(
+      double[] lovis,
+      int dim,
+      double[] singleton,
+      double[] prefix,
+      double[] suffix,
       double lValue,
-      double alfa) {
-
-    if (sortingMethod == SORTING_METHOD.DESCENDING) Arrays.sort(lovis);
-    else if (sortingMethod == SORTING_METHOD.ASCENDING)
-      Arrays.sort(lovis, Collections.reverseOrder());
-
-    int dim = lovis.length;
-    double[] singleton = computeSingletonMeasures(method, dim, alfa, lovis);
-
-    double[] summationLU = new double[dim]; // summation from minumum to maximum value
-    double[] summationUL = new double[dim]; // summation from maximum to minumum value
-
-    int i;
-    int j;
-    if (sortingMethod == SORTING_METHOD.DESCENDING) {
-      i = dim;
-      j = 1;
-
-      while (i >= 1) {
-        summationLU[j - 1] = j - 1 == 0 ? singleton[j - 1] : summationLU[j - 2] + singleton[j - 1];
-        summationUL[i - 1] = j - 1 == 0 ? singleton[i - 1] : summationUL[i] + singleton[i - 1];
-        --i;
-        ++j;
-      }
-    } else if (sortingMethod == SORTING_METHOD.ASCENDING) {
-      for (j = dim, i = 1; i <= dim; --j, i++) {
-        summationLU[j - 1] = j == dim ? singleton[j - 1] : singleton[j - 1] + summationLU[j];
-        summationUL[i - 1] = j == dim ? singleton[i - 1] : singleton[i - 1] + summationUL[i - 2];
-      }
-    }
-
+      boolean desc) {
     double pivot = 1.0;
     double value = 0.0;
 
-    for (i = dim; i >= 1; --i) {
-      double aMinus1;
-      if (sortingMethod.equals(SORTING_METHOD.DESCENDING)) {
-        aMinus1 = computeFuzzyValue(dim, i - 1, singleton, summationLU, summationUL, lValue, true);
-      } else {
-        aMinus1 = computeFuzzyValue(dim, i - 1, singleton, summationUL, summationLU, lValue, false);
-      }
-
+    for (int i = dim; i >= 1; --i) {
+      double aMinus1 = computeFuzzyValue(dim, i - 1, singleton, prefix, suffix, lValue, desc);
       value += lovis[i - 1] * (pivot - aMinus1);
       pivot = aMinus1;
     }
@@ -141,76 +121,102 @@ public class Choquet {
     }
   }
 
-  private static double[] computeSingletonMeasures(
-      SINGLETON_METHODS method, int dim, double alfa, Double[] lovis) {
+  /**
+   * Singleton measures of a sorted vector. The DESCENDING sort orders the vector from minimum to
+   * maximum and ASCENDING from maximum to minimum; in both cases the denominator is accumulated in
+   * the sorted order.
+   */
+  private static void computeSingletonMeasures(
+      SINGLETON_METHODS method, int dim, double alfa, double[] lovis, double[] singleton) {
+    double den = 0d;
+    for (int i = 0; i < dim; i++) {
+      singleton[i] = singletonWeight(method, lovis[i], alfa);
+      den += singleton[i];
+    }
+
+    for (int i = 0; i < dim; i++) {
+      singleton[i] = den != 0 ? singleton[i] / den : 0d;
+    }
+  }
 
+  private static double singletonWeight(SINGLETON_METHODS method, double lovi, double alfa) {
     switch (method) {
       case AGGREGATED_OBJECTS_1:
-        return aggregatedMethod1(dim, alfa, lovis);
-
+        return Math.pow(lovi, alfa);
       case AGGREGATED_OBJECTS_2:
-        return aggregatedMethod2(dim, alfa, lovis);
+        return Math.pow(Math.abs(1d - lovi), alfa);
       default:
-        return new double[dim];
+        return 0d;
     }
   }
 
-  private static double[] aggregatedMethod1(int dim, double alfa, Double[] lovis) {
-
-    double[] singleton = new double[dim];
-    if (dim > 0) {
-      // the lovis vector is already in ascending order
-
-      double den = 0d;
-      for (int i = 1; i <= dim; i++) {
-        den += Math.pow(lovis[i - 1], alfa);
+  /** Singleton measures of one (direction, method, alpha) and their prefix and suffix sums. */
+  private static final class Measures {
+    private SORTING_METHOD sort;
+    private SINGLETON_METHODS method;
+    private double alfa;
+    private double[] singleton = new double[0];
+    private double[] prefix = new double[0];
+    private double[] suffix = new double[0];
+
+    private void compute(double[] lovis, int dim) {
+      if (singleton.length < dim) {
+        singleton = new double[dim];
+        prefix = new double[dim];
+        suffix = new double[dim];
       }
-
-      if (den != 0) {
-        for (int i = lovis.length; i >= 1; i--) {
-          singleton[i - 1] = Math.pow(lovis[i - 1], alfa) / den;
-        }
+      computeSingletonMeasures(method, dim, alfa, lovis, singleton);
+      prefix[0] = singleton[0];
+      for (int i = 1; i < dim; i++) {
+        prefix[i] = prefix[i - 1] + singleton[i];
+      }
+      suffix[dim - 1] = singleton[dim - 1];
+      for (int i = dim - 2; i >= 0; i--) {
+        suffix[i] = suffix[i + 1] + singleton[i];
       }
     }
-    return singleton;
   }
 
-  private static double[] aggregatedMethod2(int dim, double alfa, Double[] lovis) {
+  /** Measures of one worker thread, reused across vectors. */
+  private static final class Scratch {
+    private int dim;
+    private final List<Measures> measures = new ArrayList<>();
+    private int measuresUsed;
 
-    double[] singleton = new double[dim];
-    if (dim > 0) {
-      // the lovis vector is already in ascending order
-
-      double den = 0d;
-      for (int i = 1; i <= dim; i++) {
-        den += Math.pow(Math.abs(1d - lovis[i - 1]), alfa);
-      }
+    private void reset(int dim) {
+      this.dim = dim;
+      measuresUsed = 0;
+    }
 
-      if (den != 0) {
-        for (int i = lovis.length; i >= 1; i--) {
-          singleton[i - 1] = Math.pow(Math.abs(1d - lovis[i - 1]), alfa) / den;
+    private Measures measures(
+        double[] lovis, SORTING_METHOD sort, SINGLETON_METHODS method, double alfa) {
+      for (int m = 0; m < measuresUsed; m++) {
+        Measures cached = measures.get(m);
+        if (cached.sort == sort
+            && cached.method == method
+            && Double.compare(cached.alfa, alfa) == 0) {
+          return cached;
         }
       }
+      if (measuresUsed == measures.size()) {
+        measures.add(new Measures());
+      }
+      Measures entry = measures.get(measuresUsed++);
+      entry.sort = sort;
+      entry.method = method;
+      entry.alfa = alfa;
+      entry.compute(lovis, dim);
+      return entry;
     }
-    return singleton;
   }
 
   public static void main(String[] args) {
     double[] lovis = {1.0, 2.0, 3.0};
 
     for (String choquet : defaultChoquet) {
-
-      String conf = choquet.substring(choquet.indexOf('[') + 1, choquet.indexOf(']'));
-      String[] confs = conf.split(";");
-
-      SORTING_METHOD sort = SORTING_METHOD.fromCode(confs[0]);
-      double lValue = Double.parseDouble(confs[1]);
-      SINGLETON_METHODS method = SINGLETON_METHODS.fromCode(confs[2]);
-      double alfa = Double.parseDouble(confs[3]);
+      ChoquetParameters parameters = ChoquetParameters.parse(choquet);
       logger.log(
-          Level.INFO,
-          "Choquet({0})={1}",
-          new Object[] {conf, choquetIntegral(lovis, method, sort, lValue, alfa)});
+          Level.INFO, "Choquet({0})={1}", new Object[] {choquet, compute(lovis, parameters)});
     }
   }
 
@@ -0,0 +1,149 @@
+package tomocomd.md.aggregation;
+
+import java.util.Arrays;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+import tomocomd.model.LinearTopology;
+import tomocomd.model.PeptideTopology;
+
+/**
+ * Electrotopological state {@code S_i = L_i + sum_j (L_i - L_j) / (d_ij + 1)^2} of a LOVI vector.
+ *
+ * <p>The squared distances come from a precomputed table, and terms are divided by them in the
+ * original order, so results are bit-exact with the per-pair formula. On a linear chain the kernel
+ * {@code 1 / (|i - j| + 1)^2} is a fixed convolution: chains of {@link #FFT_THRESHOLD} residues or
+ * more are computed by FFT in {@code O(n log n)}, with results equal up to rounding.
+ */
+public final class ElectroTopologicalState {
+
+  /** Chain length from which ES is computed by FFT convolution. */
+  public static final int FFT_THRESHOLD = 4096;
+
+  /** {@code SQUARES[d] = (d + 1)^2}, the divisor of the term of two residues at distance d. */
+  private static final double[] SQUARES = new double[FFT_THRESHOLD];
+
+  static {
+    for (int d = 0; d < SQUARES.length; d++) {
+      SQUARES[d] = (double) (d + 1) * (d + 1);
+    }
+  }
+
+  private ElectroTopologicalState() {}
+
+  public static double[] compute(double[] lovis, PeptideTopology topology) {
+    return computeAll(new double[][] {lovis}, topology)[0];
+  }
+
+  /**
+   * ES of several LOVI vectors of the same peptide (e.g. all its properties), sharing the distance
+   * kernel, and its transform for long chains, between them.
+   */
+  public static double[][] computeAll(double[][] lovis, PeptideTopology topology) {
+    int n = topology.size();
+    double[][] states = new double[lovis.length][];
+    if (topology instanceof LinearTopology && n >= FFT_THRESHOLD) {
+      ChainConvolution convolution = new ChainConvolution(n);
+      for (int v = 0; v < lovis.length; v++) {
+        states[v] = convolution.apply(lovis[v]);
+      }
+    } else if (topology instanceof LinearTopology) {
+      for (int v = 0; v < lovis.length; v++) {
+        states[v] = computeChain(lovis[v]);
+      }
+    } else {
+      for (int v = 0; v < lovis.length; v++) {
+        states[v] = computeGraph(lovis[v], topology);
+      }
+    }
+    return states;
+  }
+
+  private static double[] computeChain(double[] lovis) {
+    int n = lovis.length;
+    double[] sI = new double[n];
+    for (int i = 0; i < n; i++) {
+      double lI = lovis[i];
+      double sum = 0;
+      for (int j = 0; j < n; j++) {
+        sum = sum + (lI - lovis[j]) / SQUARES[Math.abs(i - j)];
+      }
+      sI[i] = lI + sum;
+    }
+    return sI;
+  }
+
+  private static double[] computeGraph(double[] lovis, PeptideTopology topology) {
+    int n = lovis.length;
+    double[] sI = new double[n];
+    for (int i = 0; i < n; i++) {
+      double lI = lovis[i];
+      double sum = 0;
+      for (int j = 0; j < n; j++) {
+        sum = sum + (lI - lovis[j]) / square(topology.distance(i, j));
+      }
+      sI[i] = lI + sum;
+    }
+    return sI;
+  }
+
+  private static double square(int distance) {
+    if (distance < SQUARES.length) {
+      return SQUARES[distance];
+    }
+    double dij = distance + 1.0;
+    return dij * dij;
+  }
+
+  /**
+   * {@code S_i = L_i + L_i W_i - (w * L)_i}, where {@code w(d) = 1 / (d + 1)^2}, {@code W_i} is the
+   * sum of the kernel over the chain and {@code w * L} is computed by FFT.
+   */
+  private static final class ChainConvolution {
+    private final FastFourierTransformer fft =
+        new FastFourierTransformer(DftNormalization.STANDARD);
+    private final int n;
+    private final double[] weightSums;
+    private final Complex[] kernel;
+
+    ChainConvolution(int n) {
+      this.n = n;
+      double[] prefix = new double[n];
+      double running = 0;
+      for (int d = 0; d < n; d++) {
+        running += 1.0 / square(d);
+        prefix[d] = running;
+      }
+      this.weightSums = new double[n];
+      for (int i = 0; i < n; i++) {
+        weightSums[i] = prefix[i] + prefix[n - 1 - i] - 1.0;
+      }
+
+      int size = Integer.highestOneBit(3 * n - 2);
+      if (size < 3 * n - 2) {
+        size <<= 1;
+      }
+      double[] taps = new double[size];
+      for (int m = 0; m < 2 * n - 1; m++) {
+        taps[m] = 1.0 / square(Math.abs(m - (n - 1)));
+      }
+      this.kernel = fft.transform(taps, TransformType.FORWARD);
+    }
+
+    double[] apply(double[] lovis) {
+      Complex[] spectrum =
+          fft.transform(Arrays.copyOf(lovis, kernel.length), TransformType.FORWARD);
+      for (int f = 0; f < spectrum.length; f++) {
+        spectrum[f] = spectrum[f].multiply(kernel[f]);
+      }
+      Complex[] convolution = fft.transform(spectrum, TransformType.INVERSE);
+
+      double[] sI = new double[n];
+      for (int i = 0; i < n; i++) {
+        sI[i] = lovis[i] + lovis[i] * weightSums[i] - convolution[i + n - 1].getReal();
+      }
+      return sI;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package tomocomd.md.aggregation;
+
+import tomocomd.math.MathTomocomd;
+
+/**
+ * Shannon information of the equivalence classes of a vector, shared by MIC, TIC and SIC. Two
+ * values are equivalent when they are {@code ==}: {@code -0.0} joins {@code 0.0} and every {@code
+ * NaN} is a class of its own. Classes are found by open addressing over the {@code double} bit
+ * patterns and listed in order of first occurrence.
+ */
+public class Entropy {
+
+  /** {@code c * log2(c)} for the class sizes and vector lengths met in practice. */
+  private static final double[] N_LOG2_N = new double[4096];
+
+  static {
+    for (int c = 0; c < N_LOG2_N.length; c++) {
+      double size = c;
+      N_LOG2_N[c] = size * MathTomocomd.log2(size);
+    }
+  }
+
+  protected Entropy() {}
+
+  /**
+   * Writes the size of each equivalence class of {@code a} into {@code sizes}, in order of first
+   * occurrence, and returns the number of classes. {@code sizes} must hold {@code a.length} values.
+   */
+  public static int classSizes(double[] a, int[] sizes) {
+    int n = a.length;
+    int capacity = Integer.highestOneBit(Math.max(2, 2 * n - 1)) << 1;
+    int mask = capacity - 1;
+    long[] keys = new long[capacity];
+    int[] slots = new int[capacity]; // class index + 1, 0 when the slot is empty
+
+    int classes = 0;
+    for (int i = 0; i < n; i++) {
+      double value = a[i];
+      if (value != value) {
+        sizes[classes++] = 1;
+        continue;
+      }
+      long bits = Double.doubleToRawLongBits(value == 0.0 ? 0.0 : value);
+      int slot = mix(bits) & mask;
+      while (slots[slot] != 0 && keys[slot] != bits) {
+        slot = (slot + 1) & mask;
+      }
+      if (slots[slot] == 0) {
+        keys[slot] = bits;
+        slots[slot] = ++classes;
+        sizes[classes - 1] = 1;
+      } else {
+        sizes[slots[slot] - 1]++;
+      }
+    }
+    return classes;
+  }
+
+  /** {@code c * log2(c)}, from a table for small counts. */
+  public static double nLog2n(int c) {
+    if (c < N_LOG2_N.length) {
+      return N_LOG2_N[c];
+    }
+    double size = c;
+    return size * MathTomocomd.log2(size);
+  }
+
+  /** Total information content {@code n log2 n - sum_c |c| log2 |c|}. */
+  public static double totalInformation(double[] a) {
+    int n = a.length;
+    int[] sizes = new int[n];
+    int classes = classSizes(a, sizes);
+
+    double sum = 0.0;
+    for (int c = 0; c < classes; c++) {
+      sum += nLog2n(sizes[c]);
+    }
+    return nLog2n(n) - sum;
+  }
+
+  /** Information {@code -p log2 p} of each equivalence class, {@code p = |c| / n}. */
+  public static double[] meanInformation(double[] a) {
+    int n = a.length;
+    int[] sizes = new int[n];
+    int classes = classSizes(a, sizes);
+
+    double[] result = new double[classes];
+    for (int c = 0; c < classes; c++) {
+      double size = sizes[c];
+      double pi = size / n;
+      result[c] = -1.0 * pi * MathTomocomd.log2(pi);
+    }
+    return result;
+  }
+
+  private static int mix(long bits) {
+    long h = bits * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -1,15 +1,36 @@
 package tomocomd.md.aggregation;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import tomocomd.StartpepException;
+import tomocomd.math.DoubleKernels;
 import tomocomd.model.GOWAWA_WEIGHT_METHODS;
+import tomocomd.model.GowawaParameters;
 
 public class Gowawa {
 
   private static final Logger logger = Logger.getLogger(Gowawa.class.getName());
 
+  /** Longest vector whose data-independent weights are cached. */
+  private static final int MAX_CACHED_DIM = 1024;
+
+  private static final DoubleKernels KERNELS = DoubleKernels.get();
+
+  /**
+   * Weight values kept in {@link #WEIGHTS}, about 16 MB; the cache is dropped whole when it fills
+   * up, so configurations seen once do not pin their weights for the life of the JVM.
+   */
+  static final int MAX_CACHED_VALUES = 1 << 21;
+
+  private static final Map<WeightKey, double[]> WEIGHTS = new ConcurrentHashMap<>();
+  private static final AtomicInteger CACHED_VALUES = new AtomicInteger();
+
   public static double computeGOWAWA(
       double[] oriLovis,
       double betaOwawa,
@@ -21,24 +42,91 @@ public class Gowawa {
       GOWAWA_WEIGHT_METHODS methodWa,
       double alfaWa,
       double betaWa) {
+    return compute(
+        oriLovis,
+        new GowawaParameters(
+            null, betaOwawa, lambdaOwa, methodOwa, alfaOwa, betaOwa, deltaWa, methodWa, alfaWa,
+            betaWa));
+  }
+
+  /** GOWAWA values of one vector for several configurations, sharing one sort of the vector. */
+  public static double[] computeAll(double[] oriLovis, List<GowawaParameters> parameters) {
     if (oriLovis == null || oriLovis.length == 0) {
-      return Double.NaN;
+      double[] values = new double[parameters.size()];
+      Arrays.fill(values, Double.NaN);
+      return values;
     }
+    return computeAll(SortedView.of(oriLovis), parameters);
+  }
 
-    int[] indeces = new int[oriLovis.length];
-    double[] lovis = new double[oriLovis.length];
+  /**
+   * GOWAWA values of one vector for several configurations, reading the vector in ascending order
+   * from its shared {@link SortedView}. Weight vectors that do not depend on the data are taken
+   * from a cache shared by all vectors of the same length.
+   */
+  public static double[] computeAll(SortedView view, List<GowawaParameters> parameters) {
+    double[] values = new double[parameters.size()];
+    if (view.size() == 0 || view.hasNegative()) {
+      Arrays.fill(values, Double.NaN);
+      return values;
+    }
+
+    double[] lovis = view.ascending();
+    int[] indeces = view.permutation();
+    if (view.getNaNCount() > 0) {
+      lovis = new double[view.size()];
+      indeces = new int[view.size()];
+      for (int k = 0; k < lovis.length; k++) {
+        indeces[k] = k;
+        lovis[view.permutation()[k]] = view.ascending()[k];
+      }
+      bubbleSort(lovis, indeces);
+    } else if (hasSignedZeros(lovis)) {
+      lovis = lovis.clone();
+      indeces = indeces.clone();
+      mergeZeros(lovis, indeces);
+    }
 
-    for (int i = 0; i < oriLovis.length; i++) {
-      indeces[i] = i;
+    Descending descending = null;
+    for (int c = 0; c < values.length; c++) {
+      GowawaParameters p = parameters.get(c);
+      if (p.getLambdaOwa() == 1 && p.getDeltaWa() == 1) {
+        if (descending == null) {
+          descending = new Descending(lovis, indeces);
+        }
+        values[c] = computeLinear(lovis, descending, p);
+      } else {
+        values[c] = computeSorted(lovis, indeces, p);
+      }
+    }
+    return values;
+  }
 
-      if ((lovis[i] = oriLovis[i]) < 0) return Double.NaN;
+  /**
+   * GOWAWA with {@code lambda = delta = 1}, where both terms are weighted sums of the vector read
+   * from its maximum down: two dot products in the order of {@link #computeSorted}.
+   */
+  private static double computeLinear(double[] lovis, Descending descending, GowawaParameters p) {
+    int dim = lovis.length;
+    double betaOwawa = p.getBetaOwawa();
+    double[] owaWeights = weights(true, p.getMethodOwa(), lovis, p.getAlfaOwa(), p.getBetaOwa());
+    double[] waWeights = weights(false, p.getMethodWa(), lovis, p.getAlfaWa(), p.getBetaWa());
+
+    double[] gathered = descending.weights;
+    for (int j = 0; j < dim; j++) {
+      gathered[j] = waWeights[descending.indeces[j]];
     }
-    sort(lovis, indeces); // it sorts the lovis vector in ascending order
+    double gowa = KERNELS.dot(descending.values, owaWeights, dim);
+    double wgm = KERNELS.dot(descending.values, gathered, dim);
+    return gowa * betaOwawa + wgm * (1 - betaOwawa);
+  }
 
-    double[] owaWeights =
-        computeWeights(true, methodOwa, lovis.length, lovis, alfaOwa, betaOwa, alfaWa, betaWa);
-    double[] waWeights =
-        computeWeights(false, methodWa, lovis.length, lovis, alfaOwa, betaOwa, alfaWa, betaWa);
+  private static double computeSorted(double[] lovis, int[] indeces, GowawaParameters p) {
+    int lambdaOwa = p.getLambdaOwa();
+    int deltaWa = p.getDeltaWa();
+    double betaOwawa = p.getBetaOwawa();
+    double[] owaWeights = weights(true, p.getMethodOwa(), lovis, p.getAlfaOwa(), p.getBetaOwa());
+    double[] waWeights = weights(false, p.getMethodWa(), lovis, p.getAlfaWa(), p.getBetaWa());
 
     double gowa = 0;
     double wgm = 0;
@@ -80,6 +168,41 @@ public class Gowawa {
     return gowa + wgm;
   }
 
+  /**
+   * Weight vector of a method. Only the aggregated objects methods depend on the data; the others
+   * are shared through {@link #WEIGHTS} and must not be modified.
+   */
+  private static double[] weights(
+      boolean isOWAVector, GOWAWA_WEIGHT_METHODS method, double[] lovis, double alfa, double beta) {
+    int dim = lovis.length;
+    if (method == GOWAWA_WEIGHT_METHODS.AGGREGATED_OBJECTS_1
+        || method == GOWAWA_WEIGHT_METHODS.AGGREGATED_OBJECTS_2
+        || dim > MAX_CACHED_DIM) {
+      return computeWeights(isOWAVector, method, dim, lovis, alfa, beta, alfa, beta);
+    }
+    WeightKey key = new WeightKey(method, dim, alfa, beta);
+    double[] weights = WEIGHTS.get(key);
+    if (weights == null) {
+      if (CACHED_VALUES.addAndGet(dim) > MAX_CACHED_VALUES) {
+        WEIGHTS.clear();
+        CACHED_VALUES.set(dim);
+      }
+      weights =
+          WEIGHTS.computeIfAbsent(
+              key, k -> computeWeights(true, method, dim, lovis, alfa, beta, alfa, beta));
+    }
+    return weights;
+  }
+
+  /** Weight values cached now. */
+  static int cachedValues() {
+    int values = 0;
+    for (double[] weights : WEIGHTS.values()) {
+      values += weights.length;
+    }
+    return values;
+  }
+
   private static double[] computeWeights(
       boolean isOWAVector,
       GOWAWA_WEIGHT_METHODS method,
@@ -224,7 +347,59 @@ public class Gowawa {
     Arrays.fill(weights, Double.NaN);
   }
 
-  private static void sort(double[] lovis, int[] indeces) {
+  /** Whether an ascending vector holds both {@code -0.0} and {@code 0.0}. */
+  private static boolean hasSignedZeros(double[] lovis) {
+    boolean negativeZero = false;
+    for (double lovi : lovis) {
+      if (lovi == 0) {
+        if (Double.doubleToRawLongBits(lovi) != 0L) {
+          negativeZero = true;
+        } else {
+          return negativeZero;
+        }
+      } else if (lovi > 0) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * GOWAWA orders {@code -0.0} and {@code 0.0} as equal values, by original index, while the sorted
+   * view places {@code -0.0} first: merges the two zero runs by index.
+   */
+  private static void mergeZeros(double[] lovis, int[] indeces) {
+    int start = 0;
+    while (lovis[start] != 0) {
+      start++;
+    }
+    int mid = start;
+    while (Double.doubleToRawLongBits(lovis[mid]) != 0L) {
+      mid++;
+    }
+    int end = mid;
+    while (end < lovis.length && lovis[end] == 0) {
+      end++;
+    }
+
+    double[] mergedValues = new double[end - start];
+    int[] mergedIndices = new int[end - start];
+    int i = start;
+    int j = mid;
+    for (int k = 0; k < mergedValues.length; k++) {
+      int from = j >= end || (i < mid && indeces[i] < indeces[j]) ? i++ : j++;
+      mergedValues[k] = lovis[from];
+      mergedIndices[k] = indeces[from];
+    }
+    System.arraycopy(mergedValues, 0, lovis, start, mergedValues.length);
+    System.arraycopy(mergedIndices, 0, indeces, start, mergedIndices.length);
+  }
+
+  /**
+   * Sorts the lovis vector in ascending order, carrying the original indices. Only used for vectors
+   * with NaN values, whose arrangement depends on this algorithm.
+   */
+  private static void bubbleSort(double[] lovis, int[] indeces) {
     for (int i = 0; i < lovis.length; i++) {
       for (int j = 0; j < lovis.length - 1 - i; j++) {
         if (lovis[j] > lovis[j + 1]) {
@@ -241,25 +416,28 @@ public class Gowawa {
   }
 
   public static double validateAndCompute(double[] lovis, String headGowawa) {
+    return compute(lovis, GowawaParameters.parse(headGowawa));
+  }
+
+  public static double compute(double[] lovis, GowawaParameters parameters) {
+    return computeAll(lovis, Collections.singletonList(parameters))[0];
+  }
 
-    String conf = headGowawa.substring(headGowawa.indexOf('[') + 1, headGowawa.indexOf(']'));
-    String[] owawaParts = conf.split(";");
-    try {
-      double betaOwawa = Double.parseDouble(owawaParts[0]);
-      int lambdaOwa = Integer.parseInt(owawaParts[1]);
-      GOWAWA_WEIGHT_METHODS methodOwa = GOWAWA_WEIGHT_METHODS.fromCode(owawaParts[2]);
-      double alfaOwa = Double.parseDouble(owawaParts[3]);
-      double betaOwa = Double.parseDouble(owawaParts[4]);
-      int deltaWa = Integer.parseInt(owawaParts[5]);
-      GOWAWA_WEIGHT_METHODS methodWa = GOWAWA_WEIGHT_METHODS.fromCode(owawaParts[6]);
-      double alfaWa = Double.parseDouble(owawaParts[7]);
-      double betaWa = Double.parseDouble(owawaParts[8]);
-      return computeGOWAWA(
-          lovis, betaOwawa, lambdaOwa, methodOwa, alfaOwa, betaOwa, deltaWa, methodWa, alfaWa,
-          betaWa);
-    } catch (Exception e) {
-      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
-          "Error in GOWAWA configuration: " + e);
+  /** A sorted vector read from its maximum down, with a buffer for gathered weights. */
+  private static final class Descending {
+    private final double[] values;
+    private final int[] indeces;
+    private final double[] weights;
+
+    private Descending(double[] lovis, int[] ascendingIndeces) {
+      int dim = lovis.length;
+      values = new double[dim];
+      indeces = new int[dim];
+      weights = new double[dim];
+      for (int j = 0; j < dim; j++) {
+        values[j] = lovis[dim - 1 - j];
+        indeces[j] = ascendingIndeces[dim - 1 - j];
+      }
     }
   }
 
@@ -267,21 +445,7 @@ public class Gowawa {
     double[] lovis = {1.0, 2.0, 3.0};
 
     for (String owawa : defaultOWAWAs) {
-      String conf = owawa.substring(owawa.indexOf('[') + 1, owawa.indexOf(']'));
-      String[] owawaParts = conf.split(";");
-      double betaOwawa = Double.parseDouble(owawaParts[0]);
-      int lambdaOwa = Integer.parseInt(owawaParts[1]);
-      GOWAWA_WEIGHT_METHODS methodOwa = GOWAWA_WEIGHT_METHODS.fromCode(owawaParts[2]);
-      double alfaOwa = Double.parseDouble(owawaParts[3]);
-      double betaOwa = Double.parseDouble(owawaParts[4]);
-      int deltaWa = Integer.parseInt(owawaParts[5]);
-      GOWAWA_WEIGHT_METHODS methodWa = GOWAWA_WEIGHT_METHODS.fromCode(owawaParts[6]);
-      double alfaWa = Double.parseDouble(owawaParts[7]);
-      double betaWa = Double.parseDouble(owawaParts[8]);
-      double value =
-          computeGOWAWA(
-              lovis, betaOwawa, lambdaOwa, methodOwa, alfaOwa, betaOwa, deltaWa, methodWa, alfaWa,
-              betaWa);
+      double value = compute(lovis, GowawaParameters.parse(owawa));
       logger.log(Level.INFO, "Gowawa({0})={1}", new Object[] {owawa, value});
     }
   }
@@ -336,4 +500,36 @@ public class Gowawa {
     "GOWAWA[0.9;1;ES1-OWA;0.7;0.0;1;ES2-OWA;0.9;0.0]",
     "GOWAWA[0.2;2;S-OWA;0.6;0.0;2;S-OWA;0.8;0.1]"
   };
+
+  /** Key of a data-independent weight vector: (method, dim, alpha, beta). */
+  private static final class WeightKey {
+    private final GOWAWA_WEIGHT_METHODS method;
+    private final int dim;
+    private final double alfa;
+    private final double beta;
+
+    private WeightKey(GOWAWA_WEIGHT_METHODS method, int dim, double alfa, double beta) {
+      this.method = method;
+      this.dim = dim;
+      this.alfa = alfa;
+      this.beta = beta;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(method, dim, alfa, beta);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof WeightKey)) {
+        return false;
+      }
+      WeightKey other = (WeightKey) obj;
+      return method == other.method
+          && dim == other.dim
+          && Double.compare(alfa, other.alfa) == 0
+          && Double.compare(beta, other.beta) == 0;
+    }
+  }
 }
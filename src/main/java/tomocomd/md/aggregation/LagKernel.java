@@ -0,0 +1,131 @@
+package tomocomd.md.aggregation;
+
+import tomocomd.StartpepException;
+import tomocomd.math.DoubleKernels;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.LinearTopology;
+import tomocomd.model.PeptideTopology;
+
+/**
+ * Lagged classic operators (AC, GV and TS) of a LOVI vector for a whole range of lags, computed in
+ * one pass over the residue pairs into preallocated arrays. Each vector lists its pairs {@code (i,
+ * j)} at distance {@code k} ordered by {@code i} and then {@code j}.
+ */
+public final class LagKernel {
+
+  private static final DoubleKernels KERNELS = DoubleKernels.get();
+
+  private final int fromK;
+  private final double[][] ac;
+  private final double[][] gv;
+  private final double[][] ts;
+
+  private LagKernel(int fromK, int lags) {
+    this.fromK = fromK;
+    this.ac = new double[lags][];
+    this.gv = new double[lags][];
+    this.ts = new double[lags][];
+  }
+
+  /** AC, GV and TS vectors of {@code lovis} for every lag in {@code [fromK, toK]}. */
+  public static LagKernel compute(double[] lovis, PeptideTopology topology, int fromK, int toK) {
+    if (fromK < 1 || toK < fromK) {
+      throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
+          "Invalid lag range [" + fromK + ", " + toK + "]");
+    }
+    LagKernel kernel = new LagKernel(fromK, toK - fromK + 1);
+    if (topology instanceof LinearTopology) {
+      kernel.computeChain(lovis, toK);
+    } else {
+      for (int k = fromK; k <= toK; k++) {
+        kernel.computePairs(lovis, k, topology.pairsAtDistance(k));
+      }
+    }
+    return kernel;
+  }
+
+  /**
+   * Kernel of {@code lovis}, the vector this kernel was computed from with only {@code
+   * lovis[position]} changed: copies every vector and recomputes the pairs containing {@code
+   * position}, at most two per lag on a linear chain.
+   */
+  public LagKernel substitute(double[] lovis, int position, PeptideTopology topology) {
+    LagKernel kernel = new LagKernel(fromK, ac.length);
+    for (int index = 0; index < ac.length; index++) {
+      int k = fromK + index;
+      kernel.ac[index] = ac[index].clone();
+      kernel.gv[index] = gv[index].clone();
+      kernel.ts[index] = ts[index].clone();
+      if (topology instanceof LinearTopology) {
+        if (position - k >= 0) {
+          kernel.computeTerm(index, k, position - k, lovis[position - k], lovis[position]);
+        }
+        if (position + k < lovis.length) {
+          kernel.computeTerm(index, k, position, lovis[position], lovis[position + k]);
+        }
+      } else {
+        int[] pairs = topology.pairsAtDistance(k);
+        for (int p = 0; p < pairs.length / 2; p++) {
+          if (pairs[2 * p] == position || pairs[2 * p + 1] == position) {
+            kernel.computeTerm(index, k, p, lovis[pairs[2 * p]], lovis[pairs[2 * p + 1]]);
+          }
+        }
+      }
+    }
+    return kernel;
+  }
+
+  /** Vector of a lagged operator for a lag of the computed range. */
+  public double[] get(CLASSIC_OPERATORS operator, int k) {
+    int index = k - fromK;
+    if (index < 0 || index >= ac.length) {
+      throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
+          "Lag " + k + " outside the computed range");
+    }
+    switch (operator) {
+      case AC:
+        return ac[index];
+      case GV:
+        return gv[index];
+      case TS:
+        return ts[index];
+      default:
+        throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
+            operator + " is not a lagged operator");
+    }
+  }
+
+  /**
+   * On a linear chain the pairs at lag {@code k} are {@code (i, i + k)}: each lag is one
+   * element-wise pass over two shifted views of the vector.
+   */
+  private void computeChain(double[] a, int toK) {
+    int n = a.length;
+    for (int k = fromK; k <= toK; k++) {
+      int index = k - fromK;
+      int pairs = Math.max(0, n - k);
+      ac[index] = new double[pairs];
+      gv[index] = new double[pairs];
+      ts[index] = new double[pairs];
+      KERNELS.lagTerms(a, k, ac[index], gv[index], ts[index]);
+    }
+  }
+
+  private void computePairs(double[] a, int k, int[] pairs) {
+    int index = k - fromK;
+    int count = pairs.length / 2;
+    ac[index] = new double[count];
+    gv[index] = new double[count];
+    ts[index] = new double[count];
+    for (int p = 0; p < count; p++) {
+      computeTerm(index, k, p, a[pairs[2 * p]], a[pairs[2 * p + 1]]);
+    }
+  }
+
+  private void computeTerm(int index, int k, int pair, double ai, double aj) {
+    double product = ai * aj;
+    ac[index][pair] = product;
+    gv[index][pair] = product / k;
+    ts[index][pair] = ai + aj;
+  }
+}
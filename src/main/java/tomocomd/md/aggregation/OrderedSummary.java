@@ -0,0 +1,14 @@
+package tomocomd.md.aggregation;
+
+import tomocomd.model.AGGREGATOR_OPERATORS;
+
+/**
+ * A vector seen by the aggregators: the value of every information, mean, norm and statistic
+ * operator, and the sorted view read by the Choquet and GOWAWA aggregators.
+ */
+public interface OrderedSummary {
+
+  double get(AGGREGATOR_OPERATORS operator);
+
+  SortedView getSortedView();
+}
@@ -0,0 +1,497 @@
+package tomocomd.md.aggregation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.math3.util.FastMath;
+import tomocomd.StartpepException;
+import tomocomd.model.AGGREGATOR_OPERATORS;
+
+/**
+ * Window of fixed width sliding forward over a vector. As values enter and leave, the window
+ * updates its running sums (sum, absolute, square and power sums, logarithms), its composition
+ * counts and its sorted order. Moving by one position costs {@code O(1)} for the sums and counts,
+ * and {@code O(log w)} comparisons plus an {@code O(w)} array shift for the sorted order.
+ *
+ * <p>The {@link #isRolling rolling} operators and MX, MN and RA are then answered in {@code O(1)}
+ * per window. The other operators read the whole window: quartiles, I50, Choquet and GOWAWA read
+ * {@link #getSortedView}, which copies the sorted order, and skewness and kurtosis are computed on
+ * the window values, so they cost {@code O(w)} per window and {@code O(n w)} along a vector of
+ * {@code n} values.
+ *
+ * <p>The sorted order, and the MX, MN, RA and quartile values read from it, are exact. The running
+ * sums are compensated, and are recomputed from the window every {@code w} moves. A sum is only
+ * trusted while it is well above the rounding left by the values that entered and left: a sum that
+ * cancels to about zero, as the mean of a centred scale can, and a variance that is small against
+ * the squares, are answered from a direct computation, as are windows holding NaN or infinite
+ * terms. Rolling values then agree with a direct computation to a relative error of about {@code
+ * 1e-12}, but not bit for bit.
+ */
+public final class RollingWindow implements OrderedSummary {
+
+  /** Least ratio of a running sum to the absolute terms it has seen trusted from updates. */
+  private static final double SUM_TOLERANCE = 1e-12;
+
+  /** Least ratio of the sum of squared deviations to the sum of squares trusted from updates. */
+  private static final double MOMENTS_TOLERANCE = 1e-5;
+
+  private final double[] source;
+  private final int width;
+  private int start = -1;
+  private int moves;
+
+  private final RunningSum sum = new RunningSum();
+  private final RunningSum sumAbs = new RunningSum();
+  private final RunningSum sumSquares = new RunningSum();
+  private final RunningSum sumPow3 = new RunningSum();
+  private final RunningSum sumPow2 = new RunningSum();
+  private final RunningSum sumInverse = new RunningSum();
+  private final RunningSum sumLog = new RunningSum();
+  private int zeros;
+  private int negatives;
+
+  private final Map<Long, Integer> classSizes = new HashMap<>();
+  // sum_c |c| log2 |c| over the classes of the non-NaN values
+  private final RunningSum classInformation = new RunningSum();
+
+  private final double[] ascending;
+  private final int[] order; // index in source of each value of ascending
+  private int nanCount;
+
+  private SortedView sortedView;
+  private VectorSummary summary;
+
+  public RollingWindow(double[] source, int width) {
+    if (width < 0 || width > source.length) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Window of " + width + " over a vector of " + source.length);
+    }
+    this.source = source;
+    this.width = width;
+    this.ascending = new double[width];
+    this.order = new int[width];
+  }
+
+  /** Whether the window maintains {@code operator} from running sums or counts. */
+  public static boolean isRolling(AGGREGATOR_OPERATORS operator) {
+    switch (operator) {
+      case TIC:
+      case SIC:
+      case AM:
+      case GM:
+      case P2:
+      case P3:
+      case HM:
+      case N1:
+      case N2:
+      case N3:
+      case V:
+      case SD:
+      case VC:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  /** Moves the window to {@code [newStart, newStart + width)}, updating it when moving forward. */
+  public void moveTo(int newStart) {
+    if (newStart < 0 || newStart + width > source.length) {
+      throw new IndexOutOfBoundsException(
+          "Window [" + newStart + ", " + (newStart + width) + ") outside the vector");
+    }
+    if (newStart == start) {
+      return;
+    }
+    sortedView = null;
+    summary = null;
+    if (start < 0 || newStart < start || newStart - start >= width) {
+      rebuild(newStart);
+      return;
+    }
+    while (start < newStart) {
+      slide();
+    }
+  }
+
+  /** Values of the window, copied. */
+  public double[] values() {
+    return Arrays.copyOfRange(source, start, start + width);
+  }
+
+  @Override
+  public double get(AGGREGATOR_OPERATORS operator) {
+    if (width > 0) {
+      switch (operator) {
+        case TIC:
+          if (classInformation.isValid()) {
+            return totalInformation();
+          }
+          break;
+        case SIC:
+          if (classInformation.isValid()) {
+            return totalInformation() / Entropy.nLog2n(width);
+          }
+          break;
+        case AM:
+          if (sum.isValid()) {
+            return sum.value() == 0 ? 0 : sum.value() / width;
+          }
+          break;
+        case GM:
+          if (sumLog.isValid()) {
+            return FastMath.exp(sumLog.value() / width);
+          }
+          break;
+        case P2:
+          if (sumPow2.isValid()) {
+            return powerMean(2, sumPow2.value());
+          }
+          break;
+        case P3:
+          if (sumPow3.isValid()) {
+            return powerMean(3, sumPow3.value());
+          }
+          break;
+        case HM:
+          if (sumInverse.isValid()) {
+            return powerMean(-1, sumInverse.value());
+          }
+          break;
+        case N1:
+          if (sumAbs.isValid()) {
+            return sumAbs.value();
+          }
+          break;
+        case N2:
+          if (sumSquares.isValid()) {
+            return FastMath.sqrt(sumSquares.value());
+          }
+          break;
+        case N3:
+          if (sumPow3.isValid()) {
+            return Math.cbrt(sumPow3.value());
+          }
+          break;
+        case V:
+          if (hasMoments()) {
+            return variance();
+          }
+          break;
+        case SD:
+          if (hasMoments()) {
+            return Math.sqrt(variance());
+          }
+          break;
+        case VC:
+          if (hasMoments()) {
+            return Math.sqrt(variance()) / (sum.value() / width);
+          }
+          break;
+        case MX:
+          return nanCount > 0 ? Double.NaN : ascending[width - 1];
+        case MN:
+          return nanCount > 0 ? Double.NaN : ascending[0];
+        case RA:
+          return nanCount > 0 ? Double.NaN : ascending[width - 1] - ascending[0];
+        default:
+          break;
+      }
+    }
+    return getSummary().get(operator);
+  }
+
+  @Override
+  public SortedView getSortedView() {
+    if (sortedView == null) {
+      int[] permutation = new int[width];
+      for (int k = 0; k < width; k++) {
+        permutation[k] = order[k] - start;
+      }
+      sortedView = SortedView.ofSorted(ascending.clone(), permutation, nanCount);
+    }
+    return sortedView;
+  }
+
+  private VectorSummary getSummary() {
+    if (summary == null) {
+      summary = new VectorSummary(values(), getSortedView());
+    }
+    return summary;
+  }
+
+  /**
+   * Whether the variance can be taken from the running sums: they hold, the mean is not a
+   * cancellation, and the sum of squared deviations is well above the rounding of the squares. A
+   * nearly constant window is answered from a direct computation instead.
+   */
+  private boolean hasMoments() {
+    return sum.isValid()
+        && sumSquares.isValid()
+        && squaredDeviations() > MOMENTS_TOLERANCE * sumSquares.value();
+  }
+
+  /** {@code sum_i (x_i - mean)^2} of the window, from its sum and sum of squares. */
+  private double squaredDeviations() {
+    double total = sum.value();
+    return sumSquares.value() - total * total / width;
+  }
+
+  /** Sample variance, as {@link VectorSummary#getVariance}. */
+  private double variance() {
+    return width == 1 ? 0.0 : squaredDeviations() / (width - 1.0);
+  }
+
+  /**
+   * {@code n log2 n - sum_c |c| log2 |c|}, as {@link Entropy#totalInformation}; a window of one
+   * class holds no information whatever rounding the class sum carries.
+   */
+  private double totalInformation() {
+    if (nanCount == 0 && classSizes.size() == 1) {
+      return 0.0;
+    }
+    return Entropy.nLog2n(width) - classInformation.value();
+  }
+
+  /** As the power means of {@link VectorSummary}, from the maintained sums and counts. */
+  private double powerMean(int pot, double value) {
+    if (negatives > 0 && pot % 2 != 0) {
+      return Double.NaN;
+    }
+    int nonZero = width - zeros;
+    if (nonZero == 0 || value == 0) {
+      return 0;
+    }
+    switch (pot) {
+      case -1:
+        return nonZero / value;
+      case 2:
+        return Math.sqrt(value / nonZero);
+      default:
+        return Math.cbrt(value / nonZero);
+    }
+  }
+
+  private void rebuild(int newStart) {
+    start = newStart;
+    SortedView view = SortedView.of(values());
+    System.arraycopy(view.ascending(), 0, ascending, 0, width);
+    for (int k = 0; k < width; k++) {
+      order[k] = view.permutation()[k] + start;
+    }
+    nanCount = view.getNaNCount();
+    sortedView = view;
+
+    classSizes.clear();
+    for (int i = start; i < start + width; i++) {
+      addClass(source[i]);
+    }
+    refresh();
+  }
+
+  /** Recomputes the sums and the information content from the window, in index order. */
+  private void refresh() {
+    sum.reset();
+    sumAbs.reset();
+    sumSquares.reset();
+    sumPow3.reset();
+    sumPow2.reset();
+    sumInverse.reset();
+    sumLog.reset();
+    zeros = 0;
+    negatives = 0;
+    for (int i = start; i < start + width; i++) {
+      addTerms(source[i], 1);
+    }
+    classInformation.reset();
+    for (int size : classSizes.values()) {
+      classInformation.add(classTerm(size), 1);
+    }
+    moves = 0;
+  }
+
+  private void slide() {
+    int leaving = start;
+    int entering = start + width;
+    double out = source[leaving];
+    double in = source[entering];
+
+    addTerms(out, -1);
+    addTerms(in, 1);
+    removeClass(out);
+    addClass(in);
+
+    removeSorted(out, leaving);
+    insertSorted(in, entering);
+    start++;
+
+    if (++moves >= width) {
+      refresh();
+    }
+  }
+
+  private void addTerms(double value, int sign) {
+    sum.add(value, sign);
+    sumAbs.add(Math.abs(value), sign);
+    sumSquares.add(value * value, sign);
+    sumPow3.add(Math.pow(value, 3), sign);
+    sumLog.add(FastMath.log(value), sign);
+    if (value < 0) {
+      negatives += sign;
+    }
+    if (value == 0) {
+      zeros += sign;
+    } else {
+      sumInverse.add(Math.pow(value, -1), sign);
+      sumPow2.add(Math.pow(value, 2), sign);
+    }
+  }
+
+  /** Adds a value to its class, updating the class sum. */
+  private void addClass(double value) {
+    if (Double.isNaN(value)) {
+      return; // each NaN is a class of its own, |c| log2 |c| = 0
+    }
+    int size = classSizes.merge(classKey(value), 1, Integer::sum);
+    classInformation.add(classTerm(size - 1), -1);
+    classInformation.add(classTerm(size), 1);
+  }
+
+  private void removeClass(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    Long key = classKey(value);
+    int size = classSizes.get(key) - 1;
+    if (size == 0) {
+      classSizes.remove(key);
+    } else {
+      classSizes.put(key, size);
+    }
+    classInformation.add(classTerm(size + 1), -1);
+    classInformation.add(classTerm(size), 1);
+  }
+
+  /** {@code |c| log2 |c|}, {@code 0} for an emptied class. */
+  private static double classTerm(int size) {
+    return size == 0 ? 0 : Entropy.nLog2n(size);
+  }
+
+  private static Long classKey(double value) {
+    return Double.doubleToRawLongBits(value == 0.0 ? 0.0 : value);
+  }
+
+  private void removeSorted(double value, int index) {
+    int k = lowerBound(value, width);
+    while (order[k] != index) {
+      k++;
+    }
+    System.arraycopy(ascending, k + 1, ascending, k, width - 1 - k);
+    System.arraycopy(order, k + 1, order, k, width - 1 - k);
+    if (Double.isNaN(value)) {
+      nanCount--;
+    }
+  }
+
+  /** Inserts after the equal values: the entering index is the largest of the window. */
+  private void insertSorted(double value, int index) {
+    int k = upperBound(value, width - 1);
+    System.arraycopy(ascending, k, ascending, k + 1, width - 1 - k);
+    System.arraycopy(order, k, order, k + 1, width - 1 - k);
+    ascending[k] = value;
+    order[k] = index;
+    if (Double.isNaN(value)) {
+      nanCount++;
+    }
+  }
+
+  private int lowerBound(double value, int length) {
+    int lo = 0;
+    int hi = length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (Double.compare(ascending[mid], value) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private int upperBound(double value, int length) {
+    int lo = 0;
+    int hi = length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (Double.compare(ascending[mid], value) <= 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Sum of the finite terms of the window and the number of the others, compensated as in
+   * Neumaier's summation. The sum is exactly zero again once its non-zero terms have left, and is
+   * not trusted while it is within rounding of the absolute terms added and removed since the last
+   * refresh.
+   */
+  private static final class RunningSum {
+    private double sum;
+    private double compensation;
+    private double mass;
+    private int nonZero;
+    private int nonFinite;
+
+    private void add(double term, int sign) {
+      if (!Double.isFinite(term)) {
+        nonFinite += sign;
+      } else if (term != 0) {
+        double signed = sign * term;
+        double total = sum + signed;
+        if (Math.abs(sum) >= Math.abs(signed)) {
+          compensation += (sum - total) + signed;
+        } else {
+          compensation += (signed - total) + sum;
+        }
+        sum = total;
+        mass += Math.abs(term);
+        nonZero += sign;
+        if (nonZero == 0) {
+          sum = 0;
+          compensation = 0;
+        }
+      }
+    }
+
+    private double value() {
+      return sum + compensation;
+    }
+
+    private void reset() {
+      sum = 0;
+      compensation = 0;
+      mass = 0;
+      nonZero = 0;
+      nonFinite = 0;
+    }
+
+    private boolean isValid() {
+      double value = value();
+      return nonFinite == 0
+          && Double.isFinite(value)
+          && (nonZero == 0 || Math.abs(value) > SUM_TOLERANCE * mass);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package tomocomd.md.aggregation;
+
+/**
+ * Ascending order of a vector and the permutation producing it, built once and shared by every
+ * order-dependent aggregator (quartiles, Choquet, GOWAWA). Values are ordered as by {@link
+ * java.util.Arrays#sort(double[])}, {@code -0.0} before {@code 0.0} and NaN last, and equal values
+ * keep their original order. Short vectors are sorted by insertion, longer ones by merge sort.
+ *
+ * <p>The returned arrays are shared; callers must not modify them.
+ */
+public final class SortedView {
+
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  private final double[] ascending;
+  private final int[] permutation;
+  private final int nanCount;
+  private double[] descending;
+
+  private SortedView(double[] ascending, int[] permutation, int nanCount) {
+    this.ascending = ascending;
+    this.permutation = permutation;
+    this.nanCount = nanCount;
+  }
+
+  public static SortedView of(double[] values) {
+    int n = values.length;
+    int[] order = new int[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    if (n <= INSERTION_SORT_THRESHOLD) {
+      insertionSort(values, order);
+    } else {
+      order = mergeSort(values, order);
+    }
+
+    double[] ascending = new double[n];
+    int nanCount = 0;
+    for (int k = 0; k < n; k++) {
+      ascending[k] = values[order[k]];
+      if (Double.isNaN(ascending[k])) {
+        nanCount++;
+      }
+    }
+    return new SortedView(ascending, order, nanCount);
+  }
+
+  /** View over an order already known to be the one {@link #of(double[])} would build. */
+  static SortedView ofSorted(double[] ascending, int[] permutation, int nanCount) {
+    return new SortedView(ascending, permutation, nanCount);
+  }
+
+  public int size() {
+    return ascending.length;
+  }
+
+  /** Values from minimum to maximum, NaN values last. */
+  public double[] ascending() {
+    return ascending;
+  }
+
+  /** Values from maximum to minimum, NaN values first. */
+  public double[] descending() {
+    if (descending == null) {
+      int n = ascending.length;
+      double[] reversed = new double[n];
+      for (int i = 0; i < n; i++) {
+        reversed[i] = ascending[n - 1 - i];
+      }
+      descending = reversed;
+    }
+    return descending;
+  }
+
+  /** Original index of each value of {@link #ascending()}. */
+  public int[] permutation() {
+    return permutation;
+  }
+
+  public int getNaNCount() {
+    return nanCount;
+  }
+
+  /** Whether the vector has a negative value, NaN aside. */
+  public boolean hasNegative() {
+    return ascending.length > 0 && ascending[0] < 0;
+  }
+
+  private static void insertionSort(double[] values, int[] order) {
+    for (int i = 1; i < order.length; i++) {
+      int index = order[i];
+      int j = i - 1;
+      while (j >= 0 && Double.compare(values[order[j]], values[index]) > 0) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = index;
+    }
+  }
+
+  private static int[] mergeSort(double[] values, int[] order) {
+    int n = order.length;
+    int[] from = order;
+    int[] to = new int[n];
+    for (int width = 1; width < n; width *= 2) {
+      for (int left = 0; left < n; left += 2 * width) {
+        int mid = Math.min(left + width, n);
+        int right = Math.min(left + 2 * width, n);
+        int i = left;
+        int j = mid;
+        for (int k = left; k < right; k++) {
+          if (j >= right || (i < mid && Double.compare(values[from[i]], values[from[j]]) <= 0)) {
+            to[k] = from[i++];
+          } else {
+            to[k] = from[j++];
+          }
+        }
+      }
+      int[] swap = from;
+      from = to;
+      to = swap;
+    }
+    return from;
+  }
+}
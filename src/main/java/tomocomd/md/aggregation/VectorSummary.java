@@ -0,0 +1,332 @@
+package tomocomd.md.aggregation;
+
+import java.util.DoubleSummaryStatistics;
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.apache.commons.math3.util.FastMath;
+import tomocomd.StartpepException;
+import tomocomd.math.DoubleKernels;
+import tomocomd.model.AGGREGATOR_OPERATORS;
+
+/**
+ * Summary of one LOVI or classic vector from which every information, mean, norm and statistic
+ * aggregator is read. Each group of accumulators (power sums, central moments, sorted view, ...) is
+ * computed once, on first use, so a vector aggregated by many operators is scanned a few times in
+ * total instead of once or more per operator.
+ *
+ * <p>Accumulations follow the definitions they replace: commons-math {@code Variance}, {@code
+ * Skewness}, {@code Kurtosis}, {@code GeometricMean}, {@code ArrayRealVector} norms and {@code
+ * Percentile} with the legacy estimation, {@code Math.pow} power means and the stream average, so
+ * values are bit-exact with them. A summary is not thread-safe.
+ */
+public final class VectorSummary implements OrderedSummary {
+
+  private static final double Q1 = 25;
+  private static final double Q2 = 50;
+  private static final double Q3 = 75;
+
+  private static final DoubleKernels KERNELS = DoubleKernels.get();
+
+  private final double[] values;
+  private final int n;
+
+  private final double sum;
+  private final double min;
+  private final double max;
+  private final double average;
+
+  private boolean powersDone;
+  private int zeros;
+  private boolean negative;
+  private double sumInverse;
+  private double sumPow2;
+  private double sumPow3;
+
+  private boolean momentsDone;
+  private double mean;
+  private double variance;
+  private double skewness;
+
+  private boolean kurtosisDone;
+  private double kurtosis;
+
+  private boolean geometricMeanDone;
+  private double geometricMean;
+
+  private SortedView sortedView;
+
+  private boolean informationDone;
+  private double totalInformation;
+
+  public VectorSummary(double[] values) {
+    this(values, null);
+  }
+
+  /** Summary whose sorted view is already known, e.g. maintained across sliding windows. */
+  VectorSummary(double[] values, SortedView sortedView) {
+    this.sortedView = sortedView;
+    this.values = values;
+    this.n = values.length;
+
+    DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+    double s = 0.0;
+    double lo = n == 0 ? Double.NaN : values[0];
+    double hi = lo;
+    for (double value : values) {
+      s += value;
+      lo = Math.min(lo, value);
+      hi = Math.max(hi, value);
+      statistics.accept(value);
+    }
+    this.sum = s;
+    this.min = lo;
+    this.max = hi;
+    this.average = n == 0 ? Double.NaN : statistics.getAverage();
+  }
+
+  public int size() {
+    return n;
+  }
+
+  @Override
+  public double get(AGGREGATOR_OPERATORS operator) {
+    switch (operator) {
+      case TIC:
+        return getTotalInformation();
+      case SIC:
+        return getTotalInformation() / Entropy.nLog2n(n);
+      case AM:
+        return n == 0 || sum == 0 ? 0 : sum / n;
+      case GM:
+        return getGeometricMean();
+      case P2:
+        return powerMean(2);
+      case P3:
+        return powerMean(3);
+      case HM:
+        return powerMean(-1);
+      case N1:
+        return KERNELS.sumOfAbs(values);
+      case N2:
+        return FastMath.sqrt(KERNELS.sumOfSquares(values));
+      case N3:
+        computePowers();
+        return Math.cbrt(sumPow3);
+      case V:
+        return getVariance();
+      case SD:
+        return Math.sqrt(getVariance());
+      case VC:
+        return Math.sqrt(getVariance()) / average;
+      case RA:
+        return max - min;
+      case Q1:
+        return percentile(Q1);
+      case Q2:
+        return percentile(Q2);
+      case Q3:
+        return percentile(Q3);
+      case I50:
+        return percentile(Q3) - percentile(Q1);
+      case S:
+        return getSkewness();
+      case K:
+        return getKurtosis();
+      case MX:
+        return max;
+      case MN:
+        return min;
+      default:
+        throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
+            "Not a summary operator: " + operator);
+    }
+  }
+
+  public double getVariance() {
+    computeMoments();
+    return variance;
+  }
+
+  public double getSkewness() {
+    computeMoments();
+    return skewness;
+  }
+
+  public double getKurtosis() {
+    if (!kurtosisDone) {
+      kurtosis = Double.NaN;
+      if (n > 3) {
+        // storeless moments, as Variance.incrementAll
+        double m1 = 0.0;
+        double m2 = 0.0;
+        for (int i = 0; i < n; i++) {
+          double n0 = i + 1L;
+          double dev = values[i] - m1;
+          double nDev = dev / n0;
+          m1 += nDev;
+          m2 += ((double) (i + 1L) - 1) * dev * nDev;
+        }
+        double stdDev = FastMath.sqrt(m2 / (n - 1d));
+
+        double accum3 = 0.0;
+        for (double value : values) {
+          accum3 += FastMath.pow(value - m1, 4.0);
+        }
+        accum3 /= FastMath.pow(stdDev, 4.0d);
+
+        double n0 = n;
+        double coefficientOne = (n0 * (n0 + 1)) / ((n0 - 1) * (n0 - 2) * (n0 - 3));
+        double termTwo = (3 * FastMath.pow(n0 - 1, 2.0)) / ((n0 - 2) * (n0 - 3));
+        kurtosis = (coefficientOne * accum3) - termTwo;
+      }
+      kurtosisDone = true;
+    }
+    return kurtosis;
+  }
+
+  public double getGeometricMean() {
+    if (!geometricMeanDone) {
+      double sumLog = 0.0;
+      for (double value : values) {
+        sumLog += FastMath.log(value);
+      }
+      geometricMean = FastMath.exp(sumLog / n);
+      geometricMeanDone = true;
+    }
+    return geometricMean;
+  }
+
+  public double getTotalInformation() {
+    if (!informationDone) {
+      totalInformation = Entropy.totalInformation(values);
+      informationDone = true;
+    }
+    return totalInformation;
+  }
+
+  /** Ascending order of the vector, shared with the Choquet and GOWAWA aggregators. */
+  @Override
+  public SortedView getSortedView() {
+    if (sortedView == null) {
+      sortedView = SortedView.of(values);
+    }
+    return sortedView;
+  }
+
+  /** Percentile {@code p} in (0, 100] with the legacy estimation, ignoring NaN values. */
+  public double percentile(double p) {
+    if (n == 0) {
+      return Double.NaN;
+    }
+    if (n == 1) {
+      return values[0];
+    }
+    if (n <= 3) {
+      // positions at the ends select an element directly, where the sign of a zero depends on
+      // the selection algorithm: delegate to it
+      return new Percentile().evaluate(values, p);
+    }
+    SortedView view = getSortedView();
+    double[] sorted = view.ascending();
+    int length = n - view.getNaNCount();
+    if (length == 0) {
+      return Double.NaN;
+    }
+
+    double pos = p / 100d == 1d ? length : p / 100d * (length + 1);
+    double fpos = FastMath.floor(pos);
+    int intPos = (int) fpos;
+    double dif = pos - fpos;
+    if (pos < 1) {
+      return sorted[0];
+    }
+    if (pos >= length) {
+      return sorted[length - 1];
+    }
+    double lower = sorted[intPos - 1];
+    double upper = sorted[intPos];
+    return lower + dif * (upper - lower);
+  }
+
+  /** Power mean of the non-zero values, as {@code Means.generalizedMean} for p = -1, 2, 3. */
+  private double powerMean(int pot) {
+    if (n == 0) {
+      return 0;
+    }
+    computePowers();
+    if (negative && pot % 2 != 0) {
+      return Double.NaN;
+    }
+    double value = pot == -1 ? sumInverse : pot == 2 ? sumPow2 : sumPow3;
+    if (Double.isNaN(value)) {
+      return value;
+    }
+    if ((n - zeros) == 0 || value == 0) {
+      return 0;
+    }
+    switch (pot) {
+      case -1:
+        return (n - zeros) / value;
+      case 2:
+        return Math.sqrt(value / (n - zeros));
+      default:
+        return Math.cbrt(value / (n - zeros));
+    }
+  }
+
+  private void computePowers() {
+    if (powersDone) {
+      return;
+    }
+    for (double value : values) {
+      if (value < 0) {
+        negative = true;
+      }
+      // adding a signed zero to a sum started at +0.0 never changes it, so N3 and P3 share
+      // the cube sum although only P3 skips zeros
+      sumPow3 += Math.pow(value, 3);
+      if (value == 0) {
+        zeros++;
+      } else {
+        sumInverse += Math.pow(value, -1);
+        sumPow2 += Math.pow(value, 2);
+      }
+    }
+    powersDone = true;
+  }
+
+  private void computeMoments() {
+    if (momentsDone) {
+      return;
+    }
+    mean = Double.NaN;
+    variance = Double.NaN;
+    skewness = Double.NaN;
+    if (n > 0) {
+      double xbar = sum / n;
+      double correction = 0;
+      for (double value : values) {
+        correction += value - xbar;
+      }
+      mean = xbar + (correction / n);
+
+      double accum = 0.0;
+      double accum2 = 0.0;
+      double accum3 = 0.0;
+      for (double value : values) {
+        double dev = value - mean;
+        accum += dev * dev;
+        accum2 += dev;
+        accum3 += dev * dev * dev;
+      }
+      double len = n;
+      variance = n == 1 ? 0.0 : (accum - (accum2 * accum2 / len)) / (len - 1.0);
+      if (n > 2) {
+        double skewVariance = (accum - (accum2 * accum2 / n)) / (n - 1);
+        accum3 /= skewVariance * FastMath.sqrt(skewVariance);
+        double n0 = n;
+        skewness = (n0 / ((n0 - 1) * (n0 - 2))) * accum3;
+      }
+    }
+    momentsDone = true;
+  }
+}
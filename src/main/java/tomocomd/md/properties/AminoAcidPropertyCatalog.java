@@ -0,0 +1,166 @@
+package tomocomd.md.properties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import tomocomd.StartpepException;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.GROUPS;
+
+/**
+ * Immutable amino acid property table. Values are stored as {@code double[residue][property]},
+ * indexed by the one-letter residue code and the {@link AMINOACID_PROPERTY} ordinal, so a LOVI
+ * lookup is two array accesses.
+ *
+ * <p>The bundled scales are compiled once into {@link #getDefault()}; user supplied scale files
+ * with the same layout as {@code /aminoacid_weights.csv} are compiled with {@link #load(Path)}.
+ */
+public final class AminoAcidPropertyCatalog {
+
+  private static final String DEFAULT_RESOURCE = "/aminoacid_weights.csv";
+  private static final int RESIDUES = 128;
+  private static final AMINOACID_PROPERTY[] PROPERTIES = AMINOACID_PROPERTY.values();
+
+  private static final AminoAcidPropertyCatalog DEFAULT = loadDefault();
+
+  private final double[][] values;
+  private final boolean[] definedProperties;
+
+  private AminoAcidPropertyCatalog(double[][] values, boolean[] definedProperties) {
+    this.values = values;
+    this.definedProperties = definedProperties;
+  }
+
+  public static AminoAcidPropertyCatalog getDefault() {
+    return DEFAULT;
+  }
+
+  public static AminoAcidPropertyCatalog load(Path scaleFile) throws IOException {
+    try (InputStream in = Files.newInputStream(scaleFile)) {
+      return load(in);
+    }
+  }
+
+  /**
+   * Compiles a scale file: a header {@code 3code,1code,<property>...} followed by one line per
+   * residue. Columns whose name is not an {@link AMINOACID_PROPERTY} are ignored.
+   */
+  public static AminoAcidPropertyCatalog load(InputStream scaleFile) throws IOException {
+    Objects.requireNonNull(scaleFile, "scale file");
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(scaleFile, StandardCharsets.UTF_8));
+
+    String currentLine = reader.readLine(); // headings
+    if (currentLine == null) {
+      throw StartpepException.ExceptionType.READ_PROPERTY_FILE_EXCEPTION.get("Empty scale file");
+    }
+
+    String[] components = currentLine.split(",");
+    int[] columnToProperty = new int[components.length];
+    boolean[] definedProperties = new boolean[PROPERTIES.length];
+    for (int c = 0; c < components.length; c++) {
+      columnToProperty[c] = c < 2 ? -1 : propertyOrdinal(components[c].trim());
+      if (columnToProperty[c] >= 0) {
+        definedProperties[columnToProperty[c]] = true;
+      }
+    }
+
+    double[][] values = new double[RESIDUES][PROPERTIES.length];
+    int lineNumber = 1;
+    while ((currentLine = reader.readLine()) != null) {
+      lineNumber++;
+      if (currentLine.trim().isEmpty()) {
+        continue;
+      }
+      components = currentLine.split(",");
+      if (components.length != columnToProperty.length) {
+        throw StartpepException.ExceptionType.READ_PROPERTY_FILE_EXCEPTION.get(
+            "Line "
+                + lineNumber
+                + " has "
+                + components.length
+                + " columns, expected "
+                + columnToProperty.length);
+      }
+
+      String aminoAcidCode = components[1].trim(); // aminoacid code of one letter
+      if (aminoAcidCode.length() != 1 || aminoAcidCode.charAt(0) >= RESIDUES) {
+        throw StartpepException.ExceptionType.READ_PROPERTY_FILE_EXCEPTION.get(
+            "Invalid one letter code at line " + lineNumber + ": " + aminoAcidCode);
+      }
+
+      double[] residueValues = values[aminoAcidCode.charAt(0)];
+      for (int c = 2; c < components.length; c++) {
+        if (columnToProperty[c] >= 0) {
+          try {
+            residueValues[columnToProperty[c]] = Double.parseDouble(components[c]);
+          } catch (NumberFormatException e) {
+            throw StartpepException.ExceptionType.READ_PROPERTY_FILE_EXCEPTION.get(
+                "Invalid value at line " + lineNumber + ": " + components[c], e);
+          }
+        }
+      }
+    }
+    return new AminoAcidPropertyCatalog(values, definedProperties);
+  }
+
+  public boolean isDefined(AMINOACID_PROPERTY property) {
+    return definedProperties[property.ordinal()];
+  }
+
+  /** Returns the property value of a residue, {@code 0} for residues absent from the table. */
+  public double getValue(char residue, AMINOACID_PROPERTY property) {
+    return residue < RESIDUES ? values[residue][property.ordinal()] : 0d;
+  }
+
+  public double[] getAminoacidPropertyValues(
+      String seq, AMINOACID_PROPERTY property, GROUPS local) {
+    if (!definedProperties[property.ordinal()]) {
+      throw StartpepException.ExceptionType.INVALID_PROPERTY_OPERATOR.get(
+          "Property not defined in scale file: " + property);
+    }
+
+    double[] lovis = new double[seq.length()];
+    for (int i = 0; i < lovis.length; i++) {
+      lovis[i] = getLovi(seq.charAt(i), property, local);
+    }
+    return lovis;
+  }
+
+  /**
+   * LOVI of one residue: its property value when it belongs to {@code local}, {@code 0} otherwise.
+   */
+  public double getLovi(char residue, AMINOACID_PROPERTY property, GROUPS local) {
+    if (residue >= RESIDUES) {
+      return 0d;
+    }
+    return values[residue][property.ordinal()]
+        * LocalTool.belong2Local(LocalTool.groupMask(residue), local);
+  }
+
+  private static int propertyOrdinal(String name) {
+    for (AMINOACID_PROPERTY property : PROPERTIES) {
+      if (property.name().equals(name)) {
+        return property.ordinal();
+      }
+    }
+    return -1;
+  }
+
+  private static AminoAcidPropertyCatalog loadDefault() {
+    try (InputStream in = AminoAcidPropertyCatalog.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+      if (in == null) {
+        throw StartpepException.ExceptionType.READ_PROPERTY_FILE_EXCEPTION.get(
+            DEFAULT_RESOURCE + " not found");
+      }
+      return load(in);
+    } catch (IOException e) {
+      throw StartpepException.ExceptionType.READ_PROPERTY_FILE_EXCEPTION.get(e);
+    }
+  }
+}
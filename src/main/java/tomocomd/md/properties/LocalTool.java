@@ -4,6 +4,20 @@ import tomocomd.model.GROUPS;
 
 public class LocalTool {
 
+  private static final String APOLAR = "PIAVLFWM";
+  private static final String POLAR_POSITIVELY_CHARGED = "KHR";
+  private static final String POLAR_NEGATIVELY_CHARGED = "DE";
+  private static final String POLAR_UNCHARGED = "NCGSTYQ";
+  private static final String AROMATIC = "FYW";
+  private static final String ALIPHATIC = "GAPVLIM";
+  private static final String UNFOLDING = "GP";
+  private static final String ALPHA_HELIX_FAVORING = "ACLMEQHK";
+  private static final String BETA_SHEET_FAVORING = "VIFYWT";
+  private static final String BETA_TURN_FAVORING = "GSDNP";
+
+  private static final int RESIDUES = 128;
+  private static final int[] GROUP_MASKS = computeGroupMasks();
+
   protected LocalTool() {
     throw new IllegalStateException();
   }
@@ -42,30 +56,37 @@ public class LocalTool {
   }
 
   public static int belong2Local(String aa, GROUPS local) {
+    if (aa != null && aa.length() == 1) {
+      return belong2Local(aa.charAt(0), local);
+    }
+    return local == GROUPS.Total ? 1 : 0;
+  }
+
+  public static int belong2Local(char aa, GROUPS local) {
     if (local != null) {
       switch (local) {
         case Total:
           return 1;
         case Apolar:
-          return isApolar(aa) ? 1 : 0;
+          return isMember(APOLAR, aa);
         case PositivelyChargedPolar:
-          return isPolarPositivelyCharged(aa) ? 1 : 0;
+          return isMember(POLAR_POSITIVELY_CHARGED, aa);
         case NegativelyChargedPolar:
-          return isPolarNegativelyCharged(aa) ? 1 : 0;
+          return isMember(POLAR_NEGATIVELY_CHARGED, aa);
         case UnchargedPolar:
-          return isPolarUncharged(aa) ? 1 : 0;
+          return isMember(POLAR_UNCHARGED, aa);
         case Aromatic:
-          return isAromatic(aa) ? 1 : 0;
+          return isMember(AROMATIC, aa);
         case Aliphatic:
-          return isAliphatic(aa) ? 1 : 0;
+          return isMember(ALIPHATIC, aa);
         case Unfolding:
-          return isUnfolding(aa) ? 1 : 0;
+          return isMember(UNFOLDING, aa);
         case AlphaHelixFavoring:
-          return isAlphaHelixFavoring(aa) ? 1 : 0;
+          return isMember(ALPHA_HELIX_FAVORING, aa);
         case BetaSheetFavoring:
-          return isBetaSheetFavoring(aa) ? 1 : 0;
+          return isMember(BETA_SHEET_FAVORING, aa);
         case BetaTurnFavoring:
-          return isBetaTurnFavoring(aa) ? 1 : 0;
+          return isMember(BETA_TURN_FAVORING, aa);
         default:
           break;
       }
@@ -74,78 +95,30 @@ public class LocalTool {
     return 0;
   }
 
-  private static boolean isApolar(String aa) {
-    return aa.equalsIgnoreCase("P")
-        || aa.equalsIgnoreCase("I")
-        || aa.equalsIgnoreCase("A")
-        || aa.equalsIgnoreCase("V")
-        || aa.equalsIgnoreCase("L")
-        || aa.equalsIgnoreCase("F")
-        || aa.equalsIgnoreCase("W")
-        || aa.equalsIgnoreCase("M");
-  }
-
-  private static boolean isPolarPositivelyCharged(String aa) {
-    return aa.equalsIgnoreCase("K") || aa.equalsIgnoreCase("H") || aa.equalsIgnoreCase("R");
-  }
-
-  private static boolean isPolarNegativelyCharged(String aa) {
-    return aa.equalsIgnoreCase("D") || aa.equalsIgnoreCase("E");
-  }
-
-  private static boolean isPolarUncharged(String aa) {
-    return aa.equalsIgnoreCase("N")
-        || aa.equalsIgnoreCase("C")
-        || aa.equalsIgnoreCase("G")
-        || aa.equalsIgnoreCase("S")
-        || aa.equalsIgnoreCase("T")
-        || aa.equalsIgnoreCase("Y")
-        || aa.equalsIgnoreCase("Q");
-  }
-
-  private static boolean isAromatic(String aa) {
-    return aa.equalsIgnoreCase("F") || aa.equalsIgnoreCase("Y") || aa.equalsIgnoreCase("W");
-  }
-
-  private static boolean isAliphatic(String aa) {
-    return aa.equalsIgnoreCase("G")
-        || aa.equalsIgnoreCase("A")
-        || aa.equalsIgnoreCase("P")
-        || aa.equalsIgnoreCase("V")
-        || aa.equalsIgnoreCase("L")
-        || aa.equalsIgnoreCase("I")
-        || aa.equalsIgnoreCase("M");
+  /**
+   * Returns the groups a residue belongs to as a bitmask, bit {@code g.ordinal()} set for each
+   * member group {@code g}.
+   */
+  public static int groupMask(char aa) {
+    return aa < RESIDUES ? GROUP_MASKS[aa] : 1 << GROUPS.Total.ordinal();
   }
 
-  private static boolean isUnfolding(String aa) {
-    return aa.equalsIgnoreCase("G") || aa.equalsIgnoreCase("P");
+  /** Bitmask variant of {@link #belong2Local(char, GROUPS)} for tight loops. */
+  public static int belong2Local(int groupMask, GROUPS local) {
+    return local != null ? (groupMask >>> local.ordinal()) & 1 : 0;
   }
 
-  private static boolean isAlphaHelixFavoring(String aa) {
-    return aa.equalsIgnoreCase("A")
-        || aa.equalsIgnoreCase("C")
-        || aa.equalsIgnoreCase("L")
-        || aa.equalsIgnoreCase("M")
-        || aa.equalsIgnoreCase("E")
-        || aa.equalsIgnoreCase("Q")
-        || aa.equalsIgnoreCase("H")
-        || aa.equalsIgnoreCase("K");
-  }
-
-  private static boolean isBetaSheetFavoring(String aa) {
-    return aa.equalsIgnoreCase("V")
-        || aa.equalsIgnoreCase("I")
-        || aa.equalsIgnoreCase("F")
-        || aa.equalsIgnoreCase("Y")
-        || aa.equalsIgnoreCase("W")
-        || aa.equalsIgnoreCase("T");
+  private static int[] computeGroupMasks() {
+    int[] masks = new int[RESIDUES];
+    for (char aa = 0; aa < RESIDUES; aa++) {
+      for (GROUPS local : GROUPS.values()) {
+        masks[aa] |= belong2Local(aa, local) << local.ordinal();
+      }
+    }
+    return masks;
   }
 
-  private static boolean isBetaTurnFavoring(String aa) {
-    return aa.equalsIgnoreCase("G")
-        || aa.equalsIgnoreCase("S")
-        || aa.equalsIgnoreCase("D")
-        || aa.equalsIgnoreCase("N")
-        || aa.equalsIgnoreCase("P");
+  private static int isMember(String group, char aa) {
+    return group.indexOf(Character.toUpperCase(aa)) >= 0 ? 1 : 0;
   }
 }
@@ -0,0 +1,57 @@
+package tomocomd.md.properties;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.GROUPS;
+import tomocomd.model.Peptide;
+
+/**
+ * Lazily built LOVI vectors of one peptide, keyed by ({@link AMINOACID_PROPERTY}, {@link GROUPS}).
+ * The cache holds at most one vector per property/group pair, so it never grows beyond {@code 20 x
+ * 11} entries, and is safe to share between the threads computing the peptide row.
+ *
+ * <p>Returned vectors are shared; callers must not modify them.
+ */
+public final class LoviCache {
+
+  private static final int PROPERTIES = AMINOACID_PROPERTY.values().length;
+  private static final int SIZE = PROPERTIES * GROUPS.values().length;
+
+  private final Peptide peptide;
+  private final AminoAcidPropertyCatalog catalog;
+  private final AtomicReferenceArray<double[]> lovis;
+
+  public LoviCache(Peptide peptide) {
+    this(peptide, AminoAcidPropertyCatalog.getDefault());
+  }
+
+  public LoviCache(Peptide peptide, AminoAcidPropertyCatalog catalog) {
+    this.peptide = peptide;
+    this.catalog = catalog;
+    this.lovis = new AtomicReferenceArray<>(SIZE);
+  }
+
+  public Peptide getPeptide() {
+    return peptide;
+  }
+
+  public double[] get(AMINOACID_PROPERTY property, GROUPS local) {
+    int key = local.ordinal() * PROPERTIES + property.ordinal();
+    double[] values = lovis.get(key);
+    if (values == null) {
+      values = catalog.getAminoacidPropertyValues(peptide.getSeqPeptide(), property, local);
+      if (!lovis.compareAndSet(key, null, values)) {
+        double[] winner = lovis.get(key);
+        values = winner != null ? winner : values;
+      }
+    }
+    return values;
+  }
+
+  /** Drops every cached vector, used once the peptide row is complete. */
+  public void clear() {
+    for (int i = 0; i < SIZE; i++) {
+      lovis.set(i, null);
+    }
+  }
+}
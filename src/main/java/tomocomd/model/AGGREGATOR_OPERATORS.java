@@ -0,0 +1,71 @@
+package tomocomd.model;
+
+import tomocomd.StartpepException;
+
+/** Non-classic aggregation operators applied to a LOVI or classic vector. */
+public enum AGGREGATOR_OPERATORS {
+  TIC(AGGREGATOR_TYPES.INFORMATION),
+  SIC(AGGREGATOR_TYPES.INFORMATION),
+  AM(AGGREGATOR_TYPES.MEAN),
+  GM(AGGREGATOR_TYPES.MEAN),
+  P2(AGGREGATOR_TYPES.MEAN),
+  P3(AGGREGATOR_TYPES.MEAN),
+  HM(AGGREGATOR_TYPES.MEAN),
+  N1(AGGREGATOR_TYPES.NORM),
+  N2(AGGREGATOR_TYPES.NORM),
+  N3(AGGREGATOR_TYPES.NORM),
+  V(AGGREGATOR_TYPES.STATISTIC),
+  SD(AGGREGATOR_TYPES.STATISTIC),
+  VC(AGGREGATOR_TYPES.STATISTIC),
+  RA(AGGREGATOR_TYPES.STATISTIC),
+  Q1(AGGREGATOR_TYPES.STATISTIC),
+  Q2(AGGREGATOR_TYPES.STATISTIC),
+  Q3(AGGREGATOR_TYPES.STATISTIC),
+  I50(AGGREGATOR_TYPES.STATISTIC),
+  S(AGGREGATOR_TYPES.STATISTIC),
+  K(AGGREGATOR_TYPES.STATISTIC),
+  MX(AGGREGATOR_TYPES.STATISTIC),
+  MN(AGGREGATOR_TYPES.STATISTIC),
+  CHOQUET(AGGREGATOR_TYPES.CHOQUET),
+  GOWAWA(AGGREGATOR_TYPES.GOWAWA);
+
+  private final AGGREGATOR_TYPES type;
+
+  AGGREGATOR_OPERATORS(AGGREGATOR_TYPES type) {
+    this.type = type;
+  }
+
+  public AGGREGATOR_TYPES getType() {
+    return type;
+  }
+
+  /** Resolves a plain operator code, parameterised Choquet/GOWAWA codes resolve by prefix. */
+  public static AGGREGATOR_OPERATORS fromCode(String code) {
+    AGGREGATOR_OPERATORS operator = find(code);
+    if (operator != null) {
+      return operator;
+    }
+    throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
+        "Invalid aggregator operator code: " + code);
+  }
+
+  /** Non-throwing variant of {@link #fromCode(String)}, {@code null} for unknown codes. */
+  public static AGGREGATOR_OPERATORS find(String code) {
+    if (code != null) {
+      if (code.startsWith("CHOQUET[")) {
+        return CHOQUET;
+      }
+      if (code.startsWith("GOWAWA[")) {
+        return GOWAWA;
+      }
+      for (AGGREGATOR_OPERATORS operator : AGGREGATOR_OPERATORS.values()) {
+        if (operator.type != AGGREGATOR_TYPES.CHOQUET
+            && operator.type != AGGREGATOR_TYPES.GOWAWA
+            && operator.name().equals(code)) {
+          return operator;
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,11 @@
+package tomocomd.model;
+
+/** Families of the non-classic aggregation operators. */
+public enum AGGREGATOR_TYPES {
+  INFORMATION,
+  NORM,
+  MEAN,
+  STATISTIC,
+  CHOQUET,
+  GOWAWA
+}
@@ -0,0 +1,42 @@
+package tomocomd.model;
+
+import tomocomd.StartpepException;
+
+/** Classic operators turning a LOVI vector into a new vector before aggregation. */
+public enum CLASSIC_OPERATORS {
+  ES(false),
+  MIC(false),
+  AC(true),
+  GV(true),
+  TS(true);
+
+  private final boolean lagged;
+
+  CLASSIC_OPERATORS(boolean lagged) {
+    this.lagged = lagged;
+  }
+
+  /** Whether the operator takes a lag, written as {@code CODE[k]} in headings. */
+  public boolean isLagged() {
+    return lagged;
+  }
+
+  public static CLASSIC_OPERATORS fromCode(String code) {
+    CLASSIC_OPERATORS operator = find(code);
+    if (operator != null) {
+      return operator;
+    }
+    throw StartpepException.ExceptionType.INVALID_AGGREGATOR_OPERATOR.get(
+        "Invalid Classic operator code: " + code);
+  }
+
+  /** Non-throwing variant of {@link #fromCode(String)}, {@code null} for unknown codes. */
+  public static CLASSIC_OPERATORS find(String code) {
+    for (CLASSIC_OPERATORS operator : CLASSIC_OPERATORS.values()) {
+      if (operator.name().equals(code)) {
+        return operator;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,92 @@
+package tomocomd.model;
+
+import tomocomd.StartpepException;
+import tomocomd.math.MathTomocomd;
+
+/** Pre-parsed configuration of a {@code CHOQUET[sort;lambda;singleton;alpha]} aggregator. */
+public final class ChoquetParameters {
+  private final String code;
+  private final SORTING_METHOD sort;
+  private final double lambda;
+  private final SINGLETON_METHODS method;
+  private final double alfa;
+
+  public ChoquetParameters(
+      String code, SORTING_METHOD sort, double lambda, SINGLETON_METHODS method, double alfa) {
+    this.code = code;
+    this.sort = sort;
+    this.lambda = lambda;
+    this.method = method;
+    this.alfa = alfa;
+  }
+
+  public static ChoquetParameters parse(String headChoquet) {
+    StringBuilder reason = new StringBuilder();
+    ChoquetParameters parameters = tryParse(headChoquet, reason);
+    if (parameters == null) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Error in choquet configuration: " + reason);
+    }
+    return parameters;
+  }
+
+  /**
+   * Parses without throwing: returns {@code null} and appends the reason to {@code reason} when the
+   * configuration is invalid.
+   */
+  public static ChoquetParameters tryParse(String headChoquet, StringBuilder reason) {
+    int open = headChoquet == null ? -1 : headChoquet.indexOf('[');
+    if (open < 0 || !headChoquet.endsWith("]")) {
+      reason.append("expected CHOQUET[sort;lambda;singleton;alpha]: ").append(headChoquet);
+      return null;
+    }
+    String[] conf = headChoquet.substring(open + 1, headChoquet.length() - 1).split(";", -1);
+    if (conf.length != 4) {
+      reason.append("expected 4 parameters, found ").append(conf.length);
+      return null;
+    }
+
+    SORTING_METHOD sort = SORTING_METHOD.find(conf[0]);
+    SINGLETON_METHODS method = SINGLETON_METHODS.find(conf[2]);
+    if (sort == null) {
+      reason.append("invalid sort method ").append(conf[0]);
+    } else if (!MathTomocomd.isDecimal(conf[1])) {
+      reason.append("invalid lambda ").append(conf[1]);
+    } else if (Double.parseDouble(conf[1]) < -1.0) {
+      reason.append("lambda must be >= -1: ").append(conf[1]);
+    } else if (method == null) {
+      reason.append("invalid singleton method ").append(conf[2]);
+    } else if (!MathTomocomd.isDecimal(conf[3])) {
+      reason.append("invalid alpha ").append(conf[3]);
+    } else {
+      return new ChoquetParameters(
+          headChoquet, sort, Double.parseDouble(conf[1]), method, Double.parseDouble(conf[3]));
+    }
+    return null;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public SORTING_METHOD getSort() {
+    return sort;
+  }
+
+  public double getLambda() {
+    return lambda;
+  }
+
+  public SINGLETON_METHODS getMethod() {
+    return method;
+  }
+
+  public double getAlfa() {
+    return alfa;
+  }
+
+  @Override
+  public String toString() {
+    return code;
+  }
+}
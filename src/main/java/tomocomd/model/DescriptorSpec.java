@@ -0,0 +1,164 @@
+package tomocomd.model;
+
+import java.util.Objects;
+
+/**
+ * Typed form of a descriptor heading {@code [CLASSIC_]AGGREGATOR_GROUP_PROPERTY}, parsed once so
+ * computing a cell does not touch strings. Specs created without a name render it on demand.
+ */
+public final class DescriptorSpec {
+  private String name;
+  private final CLASSIC_OPERATORS classic;
+  private final int lag;
+  private final AGGREGATOR_OPERATORS aggregator;
+  private final ChoquetParameters choquet;
+  private final GowawaParameters gowawa;
+  private final GROUPS group;
+  private final AMINOACID_PROPERTY property;
+
+  private DescriptorSpec(
+      String name,
+      CLASSIC_OPERATORS classic,
+      int lag,
+      AGGREGATOR_OPERATORS aggregator,
+      ChoquetParameters choquet,
+      GowawaParameters gowawa,
+      GROUPS group,
+      AMINOACID_PROPERTY property) {
+    this.name = name;
+    this.classic = classic;
+    this.lag = lag;
+    this.aggregator = aggregator;
+    this.choquet = choquet;
+    this.gowawa = gowawa;
+    this.group = group;
+    this.property = property;
+  }
+
+  /** Spec for a plain aggregator ({@code TIC}, {@code N2}, ...), no classic operator. */
+  public static DescriptorSpec of(
+      String name,
+      CLASSIC_OPERATORS classic,
+      int lag,
+      AGGREGATOR_OPERATORS aggregator,
+      GROUPS group,
+      AMINOACID_PROPERTY property) {
+    return new DescriptorSpec(name, classic, lag, aggregator, null, null, group, property);
+  }
+
+  public static DescriptorSpec of(
+      String name,
+      CLASSIC_OPERATORS classic,
+      int lag,
+      ChoquetParameters choquet,
+      GROUPS group,
+      AMINOACID_PROPERTY property) {
+    return new DescriptorSpec(
+        name, classic, lag, AGGREGATOR_OPERATORS.CHOQUET, choquet, null, group, property);
+  }
+
+  public static DescriptorSpec of(
+      String name,
+      CLASSIC_OPERATORS classic,
+      int lag,
+      GowawaParameters gowawa,
+      GROUPS group,
+      AMINOACID_PROPERTY property) {
+    return new DescriptorSpec(
+        name, classic, lag, AGGREGATOR_OPERATORS.GOWAWA, null, gowawa, group, property);
+  }
+
+  public String getName() {
+    String rendered = name;
+    if (rendered == null) {
+      rendered = render();
+      name = rendered;
+    }
+    return rendered;
+  }
+
+  private String render() {
+    StringBuilder sb = new StringBuilder(64);
+    if (classic != null) {
+      sb.append(classic.name());
+      if (classic.isLagged()) {
+        sb.append('[').append(lag).append(']');
+      }
+      sb.append('_');
+    }
+    return sb.append(getAggregatorCode())
+        .append('_')
+        .append(group.getCode())
+        .append('_')
+        .append(property.name())
+        .toString();
+  }
+
+  /** Aggregator part of the heading, including the Choquet or GOWAWA parameter list. */
+  public String getAggregatorCode() {
+    switch (aggregator) {
+      case CHOQUET:
+        return choquet.getCode();
+      case GOWAWA:
+        return gowawa.getCode();
+      default:
+        return aggregator.name();
+    }
+  }
+
+  /** Classic operator applied to the LOVI vector, {@code null} when aggregating it directly. */
+  public CLASSIC_OPERATORS getClassic() {
+    return classic;
+  }
+
+  /** Lag {@code k} of AC, GV and TS operators, {@code 0} otherwise. */
+  public int getLag() {
+    return lag;
+  }
+
+  public AGGREGATOR_OPERATORS getAggregator() {
+    return aggregator;
+  }
+
+  public ChoquetParameters getChoquet() {
+    return choquet;
+  }
+
+  public GowawaParameters getGowawa() {
+    return gowawa;
+  }
+
+  public GROUPS getGroup() {
+    return group;
+  }
+
+  public AMINOACID_PROPERTY getProperty() {
+    return property;
+  }
+
+  @Override
+  public String toString() {
+    return getName();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(classic, lag, getAggregatorCode(), group, property);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final DescriptorSpec other = (DescriptorSpec) obj;
+    return classic == other.classic
+        && lag == other.lag
+        && group == other.group
+        && property == other.property
+        && getAggregatorCode().equals(other.getAggregatorCode());
+  }
+}
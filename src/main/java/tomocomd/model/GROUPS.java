@@ -25,12 +25,21 @@ public enum GROUPS {
   }
 
   public static GROUPS fromCode(String code) {
+    GROUPS local = find(code);
+    if (local != null) {
+      return local;
+    }
+    throw StartpepException.ExceptionType.INVALID_GROUP_OPERATOR.get("Invalid code: " + code);
+  }
+
+  /** Non-throwing variant of {@link #fromCode(String)}, {@code null} for unknown codes. */
+  public static GROUPS find(String code) {
     for (GROUPS local : GROUPS.values()) {
       if (local.code.equals(code)) {
         return local;
       }
     }
-    throw StartpepException.ExceptionType.INVALID_GROUP_OPERATOR.get("Invalid code: " + code);
+    return null;
   }
 
   public String getCode() {
@@ -0,0 +1,152 @@
+package tomocomd.model;
+
+import tomocomd.StartpepException;
+import tomocomd.math.MathTomocomd;
+
+/**
+ * Pre-parsed configuration of a {@code
+ * GOWAWA[beta;lambda;owaMethod;owaAlfa;owaBeta;delta;waMethod;waAlfa;waBeta]} aggregator.
+ */
+public final class GowawaParameters {
+  private final String code;
+  private final double betaOwawa;
+  private final int lambdaOwa;
+  private final GOWAWA_WEIGHT_METHODS methodOwa;
+  private final double alfaOwa;
+  private final double betaOwa;
+  private final int deltaWa;
+  private final GOWAWA_WEIGHT_METHODS methodWa;
+  private final double alfaWa;
+  private final double betaWa;
+
+  public GowawaParameters(
+      String code,
+      double betaOwawa,
+      int lambdaOwa,
+      GOWAWA_WEIGHT_METHODS methodOwa,
+      double alfaOwa,
+      double betaOwa,
+      int deltaWa,
+      GOWAWA_WEIGHT_METHODS methodWa,
+      double alfaWa,
+      double betaWa) {
+    this.code = code;
+    this.betaOwawa = betaOwawa;
+    this.lambdaOwa = lambdaOwa;
+    this.methodOwa = methodOwa;
+    this.alfaOwa = alfaOwa;
+    this.betaOwa = betaOwa;
+    this.deltaWa = deltaWa;
+    this.methodWa = methodWa;
+    this.alfaWa = alfaWa;
+    this.betaWa = betaWa;
+  }
+
+  public static GowawaParameters parse(String headGowawa) {
+    StringBuilder reason = new StringBuilder();
+    GowawaParameters parameters = tryParse(headGowawa, reason);
+    if (parameters == null) {
+      throw StartpepException.ExceptionType.COMPUTE_MD_EXCEPTION.get(
+          "Error in GOWAWA configuration: " + reason);
+    }
+    return parameters;
+  }
+
+  /**
+   * Parses without throwing: returns {@code null} and appends the reason to {@code reason} when the
+   * configuration is invalid.
+   */
+  public static GowawaParameters tryParse(String headGowawa, StringBuilder reason) {
+    int open = headGowawa == null ? -1 : headGowawa.indexOf('[');
+    if (open < 0 || !headGowawa.endsWith("]")) {
+      reason.append("expected GOWAWA[9 parameters]: ").append(headGowawa);
+      return null;
+    }
+    String[] owawaParts = headGowawa.substring(open + 1, headGowawa.length() - 1).split(";", -1);
+    if (owawaParts.length != 9) {
+      reason.append("expected 9 parameters, found ").append(owawaParts.length);
+      return null;
+    }
+
+    for (int i : new int[] {0, 3, 4, 7, 8}) {
+      if (!MathTomocomd.isDecimal(owawaParts[i])) {
+        reason.append("invalid number ").append(owawaParts[i]).append(" at position ").append(i);
+        return null;
+      }
+    }
+    for (int i : new int[] {1, 5}) {
+      if (!MathTomocomd.isInteger(owawaParts[i])) {
+        reason.append("invalid exponent ").append(owawaParts[i]).append(" at position ").append(i);
+        return null;
+      }
+    }
+    GOWAWA_WEIGHT_METHODS methodOwa = GOWAWA_WEIGHT_METHODS.fromCode(owawaParts[2]);
+    GOWAWA_WEIGHT_METHODS methodWa = GOWAWA_WEIGHT_METHODS.fromCode(owawaParts[6]);
+    double betaOwawa = Double.parseDouble(owawaParts[0]);
+    if (methodOwa == null) {
+      reason.append("invalid OWA weight method ").append(owawaParts[2]);
+    } else if (methodWa == null) {
+      reason.append("invalid WA weight method ").append(owawaParts[6]);
+    } else if (betaOwawa < 0 || betaOwawa > 1) {
+      reason.append("beta must be in [0, 1]: ").append(owawaParts[0]);
+    } else {
+      return new GowawaParameters(
+          headGowawa,
+          betaOwawa,
+          Integer.parseInt(owawaParts[1]),
+          methodOwa,
+          Double.parseDouble(owawaParts[3]),
+          Double.parseDouble(owawaParts[4]),
+          Integer.parseInt(owawaParts[5]),
+          methodWa,
+          Double.parseDouble(owawaParts[7]),
+          Double.parseDouble(owawaParts[8]));
+    }
+    return null;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public double getBetaOwawa() {
+    return betaOwawa;
+  }
+
+  public int getLambdaOwa() {
+    return lambdaOwa;
+  }
+
+  public GOWAWA_WEIGHT_METHODS getMethodOwa() {
+    return methodOwa;
+  }
+
+  public double getAlfaOwa() {
+    return alfaOwa;
+  }
+
+  public double getBetaOwa() {
+    return betaOwa;
+  }
+
+  public int getDeltaWa() {
+    return deltaWa;
+  }
+
+  public GOWAWA_WEIGHT_METHODS getMethodWa() {
+    return methodWa;
+  }
+
+  public double getAlfaWa() {
+    return alfaWa;
+  }
+
+  public double getBetaWa() {
+    return betaWa;
+  }
+
+  @Override
+  public String toString() {
+    return code;
+  }
+}
@@ -0,0 +1,194 @@
+package tomocomd.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import tomocomd.StartpepException;
+
+/**
+ * Sparse topology of a peptide with bonds beyond the backbone, such as the head-to-tail bond of a
+ * cyclic peptide or disulfide bridges. Bonds are stored in compressed sparse rows; the distances
+ * from a residue come from one breadth-first search, computed on first use and cached, as are the
+ * pair lists of each distance.
+ */
+public final class GraphTopology implements PeptideTopology {
+
+  private static final String TOPOLOGY = "topology";
+  private static final String CYCLIC = "cyclic";
+  private static final String DISULFIDE = "ss";
+
+  private final int size;
+  private final int[] offsets;
+  private final int[] neighbours;
+  private final AtomicReferenceArray<int[]> distances;
+  private final Map<Integer, int[]> pairs = new ConcurrentHashMap<>();
+
+  /**
+   * Builds the topology of a chain of {@code size} residues plus the given extra bonds, flattened
+   * as {@code [i0, j0, i1, j1, ...]} with 0-based residue positions.
+   */
+  public GraphTopology(int size, int[] extraBonds) {
+    if (extraBonds.length % 2 != 0) {
+      throw new IllegalArgumentException("Bonds must be given as pairs of residues");
+    }
+    this.size = size;
+
+    int[] degree = new int[size + 1];
+    for (int i = 0; i + 1 < size; i++) {
+      degree[i]++;
+      degree[i + 1]++;
+    }
+    for (int b = 0; b < extraBonds.length; b += 2) {
+      checkResidue(extraBonds[b]);
+      checkResidue(extraBonds[b + 1]);
+      degree[extraBonds[b]]++;
+      degree[extraBonds[b + 1]]++;
+    }
+
+    this.offsets = new int[size + 1];
+    for (int i = 0; i < size; i++) {
+      offsets[i + 1] = offsets[i] + degree[i];
+    }
+    this.neighbours = new int[offsets[size]];
+    int[] next = Arrays.copyOf(offsets, size);
+    for (int i = 0; i + 1 < size; i++) {
+      neighbours[next[i]++] = i + 1;
+      neighbours[next[i + 1]++] = i;
+    }
+    for (int b = 0; b < extraBonds.length; b += 2) {
+      neighbours[next[extraBonds[b]]++] = extraBonds[b + 1];
+      neighbours[next[extraBonds[b + 1]]++] = extraBonds[b];
+    }
+    this.distances = new AtomicReferenceArray<>(size);
+  }
+
+  /**
+   * Topology described by the annotations of a FASTA header, {@code key=value} words separated by
+   * whitespace or {@code |}: {@code topology=cyclic} adds a bond between the first and last
+   * residues, and {@code ss=3-20,7-15} adds disulfide bridges between the given 1-based positions.
+   * Keys are case-insensitive and other words are ignored. Headers without annotations give a
+   * {@link LinearTopology}.
+   */
+  public static PeptideTopology fromHeader(String header, int size) {
+    int[] bonds = new int[0];
+    for (String token : header == null ? new String[0] : header.split("[\\s|]+")) {
+      int separator = token.indexOf('=');
+      if (separator < 0) {
+        continue;
+      }
+      String key = token.substring(0, separator).toLowerCase(Locale.ROOT);
+      String value = token.substring(separator + 1);
+      if (key.equals(TOPOLOGY)) {
+        if (!value.equalsIgnoreCase(CYCLIC)) {
+          throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(
+              "Invalid topology " + value + " in " + header);
+        }
+        if (size > 2) {
+          bonds = append(bonds, 0, size - 1);
+        }
+      } else if (key.equals(DISULFIDE)) {
+        for (String bridge : value.split(",")) {
+          bonds = appendBridge(bonds, bridge, header, size);
+        }
+      }
+    }
+    return bonds.length == 0 ? new LinearTopology(size) : new GraphTopology(size, bonds);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int distance(int i, int j) {
+    return distancesFrom(i)[j];
+  }
+
+  @Override
+  public int[] pairsAtDistance(int k) {
+    return pairs.computeIfAbsent(k, this::findPairs);
+  }
+
+  /** Distances from residue {@code i} to every residue. */
+  private int[] distancesFrom(int i) {
+    int[] row = distances.get(i);
+    if (row == null) {
+      row = breadthFirstSearch(i);
+      distances.set(i, row);
+    }
+    return row;
+  }
+
+  private int[] breadthFirstSearch(int source) {
+    int[] row = new int[size];
+    Arrays.fill(row, Integer.MAX_VALUE);
+    int[] queue = new int[size];
+    int head = 0;
+    int tail = 0;
+    row[source] = 0;
+    queue[tail++] = source;
+    while (head < tail) {
+      int node = queue[head++];
+      for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+        int neighbour = neighbours[e];
+        if (row[neighbour] == Integer.MAX_VALUE) {
+          row[neighbour] = row[node] + 1;
+          queue[tail++] = neighbour;
+        }
+      }
+    }
+    return row;
+  }
+
+  private int[] findPairs(int k) {
+    int[] found = new int[0];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      int[] row = distancesFrom(i);
+      for (int j = i + 1; j < size; j++) {
+        if (row[j] == k) {
+          if (count + 2 > found.length) {
+            found = Arrays.copyOf(found, Math.max(16, 2 * found.length));
+          }
+          found[count++] = i;
+          found[count++] = j;
+        }
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  private void checkResidue(int residue) {
+    if (residue < 0 || residue >= size) {
+      throw new IllegalArgumentException(
+          "Residue " + residue + " outside a peptide of length " + size);
+    }
+  }
+
+  private static int[] appendBridge(int[] bonds, String bridge, String header, int size) {
+    String[] ends = bridge.split("-");
+    try {
+      if (ends.length == 2) {
+        int i = Integer.parseInt(ends[0]) - 1;
+        int j = Integer.parseInt(ends[1]) - 1;
+        if (i >= 0 && i < size && j >= 0 && j < size) {
+          return append(bonds, i, j);
+        }
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw StartpepException.ExceptionType.READ_PEPTIDE_FILE_EXCEPTION.get(
+        "Invalid disulfide bridge " + bridge + " in " + header);
+  }
+
+  private static int[] append(int[] bonds, int i, int j) {
+    int[] extended = Arrays.copyOf(bonds, bonds.length + 2);
+    extended[bonds.length] = i;
+    extended[bonds.length + 1] = j;
+    return extended;
+  }
+}
@@ -0,0 +1,37 @@
+package tomocomd.model;
+
+/**
+ * Topology of a linear chain: residue {@code i} is bonded to {@code i - 1} and {@code i + 1}, so
+ * distances are {@code |i - j|} and the pairs at distance {@code k} are {@code (i, i + k)}. Nothing
+ * is stored beyond the chain length.
+ */
+public final class LinearTopology implements PeptideTopology {
+  private final int size;
+
+  public LinearTopology(int size) {
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int distance(int i, int j) {
+    return Math.abs(i - j);
+  }
+
+  @Override
+  public int[] pairsAtDistance(int k) {
+    if (k < 1 || k >= size) {
+      return new int[0];
+    }
+    int[] pairs = new int[2 * (size - k)];
+    for (int i = 0; i < size - k; i++) {
+      pairs[2 * i] = i;
+      pairs[2 * i + 1] = i + k;
+    }
+    return pairs;
+  }
+}
@@ -0,0 +1,124 @@
+package tomocomd.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import tomocomd.StartpepException;
+
+/**
+ * Single-residue substitution of a parent sequence, written {@code K7A}: wild-type residue, 1-based
+ * position and substituted residue. {@link #getPosition()} is 0-based.
+ */
+public final class Mutation {
+
+  /** The 20 standard residues, the substitutions of a saturation scan. */
+  public static final String STANDARD_RESIDUES = "ACDEFGHIKLMNPQRSTVWY";
+
+  private final char wildType;
+  private final int position;
+  private final char residue;
+
+  public Mutation(char wildType, int position, char residue) {
+    if (position < 0) {
+      throw StartpepException.ExceptionType.INVALID_MUTATION.get("Negative position " + position);
+    }
+    if (!isResidue(wildType) || !isResidue(residue)) {
+      throw StartpepException.ExceptionType.INVALID_MUTATION.get(
+          "Invalid residue in " + wildType + (position + 1) + residue);
+    }
+    this.wildType = wildType;
+    this.position = position;
+    this.residue = residue;
+  }
+
+  /** Parses {@code K7A}, a wild-type residue, a 1-based position and a substituted residue. */
+  public static Mutation parse(String code) {
+    if (code == null || code.length() < 3) {
+      throw StartpepException.ExceptionType.INVALID_MUTATION.get(String.valueOf(code));
+    }
+    String number = code.substring(1, code.length() - 1);
+    for (int i = 0; i < number.length(); i++) {
+      if (!Character.isDigit(number.charAt(i))) {
+        throw StartpepException.ExceptionType.INVALID_MUTATION.get(code);
+      }
+    }
+    int position;
+    try {
+      position = Integer.parseInt(number) - 1;
+    } catch (NumberFormatException e) {
+      throw StartpepException.ExceptionType.INVALID_MUTATION.get(code, e);
+    }
+    return new Mutation(code.charAt(0), position, code.charAt(code.length() - 1));
+  }
+
+  /** Every substitution of every position by another standard residue, n x 19 for a peptide. */
+  public static List<Mutation> saturation(String sequence) {
+    List<Mutation> mutations = new ArrayList<>(sequence.length() * 19);
+    for (int i = 0; i < sequence.length(); i++) {
+      for (int r = 0; r < STANDARD_RESIDUES.length(); r++) {
+        char residue = STANDARD_RESIDUES.charAt(r);
+        if (residue != sequence.charAt(i)) {
+          mutations.add(new Mutation(sequence.charAt(i), i, residue));
+        }
+      }
+    }
+    return mutations;
+  }
+
+  /** Substitution of every non-alanine position by alanine. */
+  public static List<Mutation> alanineScan(String sequence) {
+    List<Mutation> mutations = new ArrayList<>(sequence.length());
+    for (int i = 0; i < sequence.length(); i++) {
+      if (sequence.charAt(i) != 'A') {
+        mutations.add(new Mutation(sequence.charAt(i), i, 'A'));
+      }
+    }
+    return mutations;
+  }
+
+  private static boolean isResidue(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  public char getWildType() {
+    return wildType;
+  }
+
+  /** 0-based position of the substituted residue. */
+  public int getPosition() {
+    return position;
+  }
+
+  public char getResidue() {
+    return residue;
+  }
+
+  /** The sequence of the variant, built only on request. */
+  public String apply(String sequence) {
+    char[] residues = sequence.toCharArray();
+    residues[position] = residue;
+    return new String(residues);
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(wildType) + (position + 1) + residue;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(wildType, position, residue);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final Mutation other = (Mutation) obj;
+    return wildType == other.wildType && position == other.position && residue == other.residue;
+  }
+}
@@ -13,20 +13,33 @@ public class Peptide {
   protected final String seqPeptide;
   protected final ProteinSequence bioJavaSeq;
 
-  protected int[][] matrix;
+  protected final PeptideTopology topology;
 
   public Peptide(String idPeptide, String seqPeptide) throws CompoundNotFoundException {
     this.idPeptide = idPeptide;
     this.seqPeptide = seqPeptide;
     this.bioJavaSeq = new ProteinSequence(seqPeptide);
-    calcAdjancencyMatrix();
+    this.topology = new LinearTopology(seqPeptide.length());
+  }
+
+  /** Peptide whose bonds are described by {@code topology}, e.g. a cyclic or bridged peptide. */
+  public Peptide(String idPeptide, String seqPeptide, PeptideTopology topology)
+      throws CompoundNotFoundException {
+    if (topology.size() != seqPeptide.length()) {
+      throw new IllegalArgumentException(
+          "Topology of " + topology.size() + " residues for a sequence of " + seqPeptide.length());
+    }
+    this.idPeptide = idPeptide;
+    this.seqPeptide = seqPeptide;
+    this.bioJavaSeq = new ProteinSequence(seqPeptide);
+    this.topology = topology;
   }
 
   public Peptide(ProteinSequence proteinSequence) throws CompoundNotFoundException {
     this.idPeptide = proteinSequence.getOriginalHeader();
     this.seqPeptide = proteinSequence.getSequenceAsString();
     this.bioJavaSeq = new ProteinSequence(String.valueOf(proteinSequence));
-    calcAdjancencyMatrix();
+    this.topology = new LinearTopology(seqPeptide.length());
   }
 
   public ProteinSequence getBioJavaSeq() throws CompoundNotFoundException {
@@ -37,7 +50,24 @@ public class Peptide {
     return seqPeptide.length();
   }
 
+  public PeptideTopology getTopology() {
+    return topology;
+  }
+
+  /**
+   * Dense adjacency matrix of the peptide, built on each call.
+   *
+   * @deprecated use {@link #getTopology()}, which answers distances without an {@code n x n} matrix
+   */
+  @Deprecated
   public int[][] getMatrix() {
+    int n = getLength();
+    int[][] matrix = new int[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        matrix[i][j] = topology.distance(i, j) == 1 ? 1 : 0;
+      }
+    }
     return matrix;
   }
 
@@ -75,14 +105,4 @@ public class Peptide {
     final Peptide other = (Peptide) obj;
     return Objects.equals(this.getIdPeptide(), other.getIdPeptide());
   }
-
-  private void calcAdjancencyMatrix() {
-    this.matrix = new int[getLength()][getLength()];
-    int n = getLength();
-    for (int i = 0; i < n; i++) {
-      for (int j = 0; j < n; j++) {
-        this.matrix[i][j] = (j == i - 1 || j == i + 1) ? 1 : 0;
-      }
-    }
-  }
 }
@@ -0,0 +1,20 @@
+package tomocomd.model;
+
+/**
+ * Bond graph of a peptide, used by the topological classic operators (ES, AC, GV, TS). Residues are
+ * the nodes, indexed by their position in the sequence.
+ */
+public interface PeptideTopology {
+
+  /** Number of residues. */
+  int size();
+
+  /** Topological distance between residues {@code i} and {@code j}, in bonds. */
+  int distance(int i, int j);
+
+  /**
+   * Pairs of residues {@code i < j} at distance {@code k}, ordered by {@code i} and then {@code j},
+   * flattened as {@code [i0, j0, i1, j1, ...]}.
+   */
+  int[] pairsAtDistance(int k);
+}
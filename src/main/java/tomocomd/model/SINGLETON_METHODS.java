@@ -17,12 +17,21 @@ public enum SINGLETON_METHODS {
   }
 
   public static SINGLETON_METHODS fromCode(String code) {
+    SINGLETON_METHODS method = find(code);
+    if (method != null) {
+      return method;
+    }
+    throw StartpepException.ExceptionType.INVALID_SINGLETON_METHOD.get(
+        "Invalid singleton method code: " + code);
+  }
+
+  /** Non-throwing variant of {@link #fromCode(String)}, {@code null} for unknown codes. */
+  public static SINGLETON_METHODS find(String code) {
     for (SINGLETON_METHODS method : SINGLETON_METHODS.values()) {
       if (method.code.equals(code)) {
         return method;
       }
     }
-    throw StartpepException.ExceptionType.INVALID_SINGLETON_METHOD.get(
-        "Invalid singleton method code: " + code);
+    return null;
   }
 }
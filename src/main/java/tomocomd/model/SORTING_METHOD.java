@@ -13,12 +13,21 @@ public enum SORTING_METHOD {
   }
 
   public static SORTING_METHOD fromCode(String code) {
+    SORTING_METHOD method = find(code);
+    if (method != null) {
+      return method;
+    }
+    throw StartpepException.ExceptionType.INVALID_SORT_CHOQUET_OPERATOR.get(
+        "Invalid sort operator for choquet: " + code);
+  }
+
+  /** Non-throwing variant of {@link #fromCode(String)}, {@code null} for unknown codes. */
+  public static SORTING_METHOD find(String code) {
     for (SORTING_METHOD method : SORTING_METHOD.values()) {
       if (method.code.equals(code)) {
         return method;
       }
     }
-    throw StartpepException.ExceptionType.INVALID_SORT_CHOQUET_OPERATOR.get(
-        "Invalid sort operator for choquet: " + code);
+    return null;
   }
 }
@@ -0,0 +1,77 @@
+package tomocomd.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link DoubleKernels} on the JDK Vector API, loaded by {@link Kernels} on JDK 21+. Element-wise
+ * kernels are exact; reductions accumulate one partial sum per lane and may differ from {@link
+ * ScalarKernels} in the last bits.
+ */
+final class VectorKernels implements DoubleKernels {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  public double dot(double[] a, double[] b, int length) {
+    int bound = SPECIES.loopBound(length);
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      acc = DoubleVector.fromArray(SPECIES, a, i).fma(DoubleVector.fromArray(SPECIES, b, i), acc);
+    }
+    double sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public double sumOfSquares(double[] a) {
+    return dot(a, a, a.length);
+  }
+
+  @Override
+  public double sumOfAbs(double[] a) {
+    int bound = SPECIES.loopBound(a.length);
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      acc = acc.add(DoubleVector.fromArray(SPECIES, a, i).abs());
+    }
+    double sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < a.length; i++) {
+      sum += Math.abs(a[i]);
+    }
+    return sum;
+  }
+
+  @Override
+  public void lagTerms(double[] a, int k, double[] products, double[] quotients, double[] sums) {
+    int n = a.length - k;
+    if (n <= 0) {
+      return;
+    }
+    int bound = SPECIES.loopBound(n);
+    double lag = k;
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      DoubleVector ai = DoubleVector.fromArray(SPECIES, a, i);
+      DoubleVector aj = DoubleVector.fromArray(SPECIES, a, i + k);
+      DoubleVector product = ai.mul(aj);
+      product.intoArray(products, i);
+      product.div(lag).intoArray(quotients, i);
+      ai.add(aj).intoArray(sums, i);
+    }
+    for (; i < n; i++) {
+      double ai = a[i];
+      double aj = a[i + k];
+      double product = ai * aj;
+      products[i] = product;
+      quotients[i] = product / k;
+      sums[i] = ai + aj;
+    }
+  }
+}
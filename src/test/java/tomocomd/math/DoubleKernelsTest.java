@@ -0,0 +1,84 @@
+package tomocomd.math;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DoubleKernelsTest {
+
+  @Test
+  void testScalarWhenDisabled() {
+    assertTrue(Kernels.select("false") instanceof ScalarKernels);
+  }
+
+  @Test
+  void testKernels() {
+    DoubleKernels kernels = DoubleKernels.get();
+    double[] a = {1.0, -2.0, 3.0, 0.5};
+
+    assertEquals(1.0 * 2.0 - 2.0 * 2.0 + 3.0 * 2.0, kernels.dot(a, new double[] {2, 2, 2, 9}, 3));
+    assertEquals(14.25, kernels.sumOfSquares(a));
+    assertEquals(6.5, kernels.sumOfAbs(a));
+
+    double[] products = new double[2];
+    double[] quotients = new double[2];
+    double[] sums = new double[2];
+    kernels.lagTerms(a, 2, products, quotients, sums);
+    assertArrayEquals(new double[] {3.0, -1.0}, products);
+    assertArrayEquals(new double[] {1.5, -0.5}, quotients);
+    assertArrayEquals(new double[] {4.0, -1.5}, sums);
+  }
+
+  /**
+   * The vector kernels against the scalar ones. Tests run from the compiled classes, not the
+   * multi-release jar, so the class is loaded from {@code META-INF/versions/21} directly; the test
+   * is skipped below JDK 21 or without the incubator module.
+   */
+  @Test
+  void testVectorKernels() throws Exception {
+    assumeTrue(Runtime.version().feature() >= 21);
+    assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+    Path classes =
+        Paths.get(DoubleKernels.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    Path versioned = classes.resolve("META-INF/versions/21");
+    assumeTrue(Files.isDirectory(versioned));
+
+    DoubleKernels vector;
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {versioned.toUri().toURL()}, getClass().getClassLoader())) {
+      Constructor<?> constructor =
+          loader.loadClass("tomocomd.math.VectorKernels").getDeclaredConstructor();
+      constructor.setAccessible(true);
+      vector = (DoubleKernels) constructor.newInstance();
+    }
+    DoubleKernels scalar = new ScalarKernels();
+    Random random = new Random(7);
+    for (int n : new int[] {0, 1, 3, 8, 17, 64, 1001}) {
+      double[] a = random.doubles(n, -10, 10).toArray();
+      double[] b = random.doubles(n, -10, 10).toArray();
+      double tolerance = 1e-12 * n * 100;
+      assertEquals(scalar.dot(a, b, n), vector.dot(a, b, n), tolerance);
+      assertEquals(scalar.sumOfSquares(a), vector.sumOfSquares(a), tolerance);
+      assertEquals(scalar.sumOfAbs(a), vector.sumOfAbs(a), tolerance);
+      for (int k = 1; k < Math.min(n, 9); k++) {
+        double[][] expected = new double[3][n - k];
+        double[][] actual = new double[3][n - k];
+        scalar.lagTerms(a, k, expected[0], expected[1], expected[2]);
+        vector.lagTerms(a, k, actual[0], actual[1], actual[2]);
+        for (int t = 0; t < 3; t++) {
+          assertArrayEquals(expected[t], actual[t]);
+        }
+      }
+    }
+  }
+}
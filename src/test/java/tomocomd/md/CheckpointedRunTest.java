@@ -0,0 +1,132 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tomocomd.io.ReadPeptideFile;
+import tomocomd.io.SaveDescriptorValue;
+import tomocomd.math.DoubleKernels;
+import tomocomd.model.PeptideContainer;
+
+class CheckpointedRunTest {
+
+  private static final DescriptorPlan PLAN =
+      DescriptorPlan.compile(List.of("MIC_S_T_ptt", "TIC_T_ptt", "ES_TIC_T_ptt"));
+
+  String path;
+  PeptideContainer peptides;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    path =
+        Paths.get(
+                Objects.requireNonNull(
+                    getClass().getClassLoader().getResource("peptides.fasta").toURI()))
+            .toString();
+    peptides = ReadPeptideFile.readPeptideFile(path);
+  }
+
+  @Test
+  void testOutputAndResume(@TempDir Path dir) throws Exception {
+    Path expected = dir.resolve("expected.csv");
+    SaveDescriptorValue.save(
+        expected.toString(),
+        peptides,
+        PLAN.getHeadings(),
+        StartpepComputer.computeForSeqContainer(PLAN, peptides));
+
+    Path journal = dir.resolve("journal");
+    Path output = dir.resolve("journaled.csv");
+    CheckpointedRun run = new CheckpointedRun(path, PLAN, journal);
+    run.setBlockSize(3);
+    run.run(output);
+    assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+
+    Properties manifest = new Properties();
+    try (InputStream in = Files.newInputStream(journal.resolve(CheckpointedRun.MANIFEST))) {
+      manifest.load(in);
+    }
+    assertEquals(Digests.of(PLAN.getHeadings()), manifest.getProperty("planHash"));
+    assertEquals(DoubleKernels.name(), manifest.getProperty("kernels"));
+    assertTrue(manifest.getProperty("completed").startsWith("0-3,3-6"));
+
+    // a journaled block is not computed again, a lost one is
+    Files.write(journal.resolve("block-0-3.csv"), List.of("kept"), StandardCharsets.UTF_8);
+    Files.delete(journal.resolve("block-3-6.csv"));
+    run.run(output);
+    List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+    assertEquals("kept", lines.get(1));
+    assertEquals(Files.readAllLines(expected, StandardCharsets.UTF_8).get(4), lines.get(2));
+  }
+
+  @Test
+  void testOtherPlanRestarts(@TempDir Path dir) throws Exception {
+    Path journal = dir.resolve("journal");
+    Path output = dir.resolve("journaled.csv");
+    CheckpointedRun run = new CheckpointedRun(path, PLAN, journal);
+    run.setBlockSize(3);
+    run.run(output);
+    Files.write(journal.resolve("block-0-3.csv"), List.of("stale"), StandardCharsets.UTF_8);
+
+    DescriptorPlan other = DescriptorPlan.compile(List.of("MIC_S_T_ptt"));
+    CheckpointedRun rerun = new CheckpointedRun(path, other, journal);
+    rerun.setBlockSize(3);
+    rerun.run(output);
+    assertFalse(Files.readAllLines(output, StandardCharsets.UTF_8).contains("stale"));
+  }
+
+  /** Blocks computed with other kernels may differ in the last bits, so they are recomputed. */
+  @Test
+  void testOtherKernelsRestarts(@TempDir Path dir) throws Exception {
+    Path journal = dir.resolve("journal");
+    Path output = dir.resolve("journaled.csv");
+    CheckpointedRun run = new CheckpointedRun(path, PLAN, journal);
+    run.setBlockSize(3);
+    run.run(output);
+    Files.write(journal.resolve("block-0-3.csv"), List.of("stale"), StandardCharsets.UTF_8);
+
+    Path file = journal.resolve(CheckpointedRun.MANIFEST);
+    Properties manifest = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      manifest.load(in);
+    }
+    manifest.setProperty("kernels", "tomocomd.math.OtherKernels");
+    try (OutputStream out = Files.newOutputStream(file)) {
+      manifest.store(out, null);
+    }
+    run.run(output);
+    assertFalse(Files.readAllLines(output, StandardCharsets.UTF_8).contains("stale"));
+  }
+
+  /** Both writers use one charset, whatever the platform default. */
+  @Test
+  void testNonAsciiIds(@TempDir Path dir) throws Exception {
+    Path fasta = dir.resolve("ids.fasta");
+    Files.write(
+        fasta,
+        List.of(">péptido-α", "GLFDIVKKVVGALGSL", ">Δ-toxin", "KWKLFKKIGAVLKVL"),
+        StandardCharsets.UTF_8);
+    PeptideContainer others = ReadPeptideFile.readPeptideFile(fasta.toString());
+    Path expected = dir.resolve("expected.csv");
+    SaveDescriptorValue.save(
+        expected.toString(),
+        others,
+        PLAN.getHeadings(),
+        StartpepComputer.computeForSeqContainer(PLAN, others));
+
+    Path output = dir.resolve("journaled.csv");
+    new CheckpointedRun(fasta.toString(), PLAN, dir.resolve("journal")).run(output);
+    assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+  }
+}
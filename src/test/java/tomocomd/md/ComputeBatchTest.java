@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,4 +40,30 @@ class ComputeBatchTest {
         new double[] {1.1298738344298023, 151.31881626063642, 226.47733175670794},
         results.getRow(0));
   }
+
+  @Test
+  void testTilesCoverEveryCell() {
+    DescriptorPlan plan = DescriptorSpace.getDefault().plan(0, 20_000);
+    ComputeBatch batch = new ComputeBatch(peptides.size(), plan.size());
+    batch.computeInBatch(peptides, plan);
+    RealMatrix results = batch.getResults();
+
+    for (int row = 0; row < peptides.size(); row++) {
+      assertArrayEquals(ComputeMD.computeInBatch(peptides.get(row), plan), results.getRow(row));
+    }
+  }
+
+  @Test
+  void testCancellationStopsOneComputation() {
+    try (StarpepEngine engine = new StarpepEngine()) {
+      ComputeBatch batch = new ComputeBatch(engine, peptides.size(), pdSet.size());
+      batch.cancelAll();
+      assertThrows(CancellationException.class, () -> batch.computeInBatch(peptides, pdSet));
+
+      batch.computeInBatch(peptides, pdSet);
+      assertArrayEquals(
+          new double[] {1.1298738344298023, 151.31881626063642, 226.47733175670794},
+          batch.getResults().getRow(0));
+    }
+  }
 }
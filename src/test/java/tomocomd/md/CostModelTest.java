@@ -0,0 +1,67 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tomocomd.StartpepException;
+import tomocomd.model.AGGREGATOR_TYPES;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.Peptide;
+
+class CostModelTest {
+
+  @Test
+  void testBuckets() {
+    assertEquals(0, CostModel.bucket(1));
+    assertEquals(0, CostModel.bucket(16));
+    assertEquals(1, CostModel.bucket(17));
+    for (int k = 1; k < CostModel.buckets(); k++) {
+      assertTrue(CostModel.bucketBound(k) > CostModel.bucketBound(k - 1));
+      assertEquals(k, CostModel.bucket(CostModel.bucketBound(k)));
+    }
+    assertEquals(CostModel.buckets() - 1, CostModel.bucket(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void testCalibratedProfileRoundTrip(@TempDir Path dir) throws Exception {
+    CostModel calibrated = CostModel.calibrate();
+    Path profile = dir.resolve("costs.csv");
+    calibrated.save(profile);
+    CostModel loaded = CostModel.load(profile);
+
+    for (int length : new int[] {10, 100, 5000}) {
+      for (CLASSIC_OPERATORS classic : new CLASSIC_OPERATORS[] {null, CLASSIC_OPERATORS.ES}) {
+        double vector = calibrated.vectorCost(classic, length);
+        assertTrue(Double.isFinite(vector) && vector > 0);
+        assertEquals(vector, loaded.vectorCost(classic, length));
+        for (AGGREGATOR_TYPES type : AGGREGATOR_TYPES.values()) {
+          assertEquals(
+              calibrated.columnCost(classic, type, length),
+              loaded.columnCost(classic, type, length));
+        }
+      }
+    }
+
+    DescriptorPlan plan = DescriptorSpace.getDefault().plan(0, 3_000);
+    List<Peptide> peptides = List.of(new Peptide("a", "ACDEFGHIK"), new Peptide("b", "LMNPQ"));
+    assertEquals(calibrated.predictNanos(peptides, plan), loaded.predictNanos(peptides, plan));
+    assertTrue(calibrated.predictNanos(peptides, plan) > 0);
+  }
+
+  @Test
+  void testInvalidProfile(@TempDir Path dir) throws Exception {
+    String profile = "classic,aggregator,length,nanos\nES,VECTOR,17,12.5\n";
+    assertThrows(
+        StartpepException.class,
+        () -> CostModel.load(new ByteArrayInputStream(profile.getBytes(StandardCharsets.UTF_8))));
+    assertThrows(
+        StartpepException.class,
+        () -> CostModel.load(Files.newInputStream(Files.createTempFile("empty", ".csv"))));
+  }
+}
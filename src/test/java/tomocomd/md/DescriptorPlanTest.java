@@ -0,0 +1,57 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tomocomd.StartpepException;
+import tomocomd.model.AGGREGATOR_OPERATORS;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.DescriptorSpec;
+import tomocomd.model.GOWAWA_WEIGHT_METHODS;
+import tomocomd.model.GROUPS;
+import tomocomd.model.SORTING_METHOD;
+
+class DescriptorPlanTest {
+
+  @Test
+  void testCompile() {
+    DescriptorPlan plan =
+        DescriptorPlan.compile(
+            List.of(
+                "TIC_T_ptt",
+                "AC[3]_CHOQUET[D;0.5;AO2;0.6]_C_mw",
+                "GOWAWA[0.1;0;W-OWA;0.1;0.6;2;W-OWA;0.1;0.2]_A_z1"));
+    assertEquals(3, plan.size());
+
+    DescriptorSpec tic = plan.get(0);
+    assertNull(tic.getClassic());
+    assertEquals(AGGREGATOR_OPERATORS.TIC, tic.getAggregator());
+    assertEquals(GROUPS.Total, tic.getGroup());
+    assertEquals(AMINOACID_PROPERTY.ptt, tic.getProperty());
+
+    DescriptorSpec choquet = plan.get(1);
+    assertEquals(CLASSIC_OPERATORS.AC, choquet.getClassic());
+    assertEquals(3, choquet.getLag());
+    assertEquals(SORTING_METHOD.DESCENDING, choquet.getChoquet().getSort());
+    assertEquals(0.5, choquet.getChoquet().getLambda());
+    assertEquals(GROUPS.PositivelyChargedPolar, choquet.getGroup());
+
+    DescriptorSpec gowawa = plan.get(2);
+    assertEquals(GOWAWA_WEIGHT_METHODS.WINDOW_OWA, gowawa.getGowawa().getMethodOwa());
+    assertEquals(2, gowawa.getGowawa().getDeltaWa());
+    assertEquals(List.of("TIC_T_ptt", choquet.getName(), gowawa.getName()), plan.getHeadings());
+  }
+
+  @Test
+  void testRejectsInvalidHeadings() {
+    assertThrows(StartpepException.class, () -> HeaderValidator.parse("MIC_T_ptt"));
+    assertThrows(StartpepException.class, () -> HeaderValidator.parse("ES_MIC_T_ptt"));
+    assertThrows(StartpepException.class, () -> HeaderValidator.parse("AC[0]_N1_T_ptt"));
+    assertThrows(StartpepException.class, () -> HeaderValidator.parse("TIC_X_ptt"));
+    assertThrows(StartpepException.class, () -> HeaderValidator.parse("TIC_T_foo"));
+    assertThrows(
+        StartpepException.class, () -> HeaderValidator.parse("GOWAWA[0.1;0;XX;0.1]_T_ptt"));
+  }
+}
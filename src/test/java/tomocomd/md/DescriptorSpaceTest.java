@@ -0,0 +1,35 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tomocomd.model.DescriptorSpec;
+
+class DescriptorSpaceTest {
+
+  private final DescriptorSpace space = DescriptorSpace.getDefault();
+
+  @Test
+  void testOrdinals() {
+    // 11 groups x 20 properties x 129 distinct aggregators x (23 classics + none)
+    assertEquals(11 * 20 * 129 * 24, space.size());
+    assertEquals("TIC_T_ptt", space.name(0));
+    assertEquals("ES_TIC_T_ptt", space.name(1));
+    assertEquals("AC[1]_TIC_T_ptt", space.name(3));
+
+    for (int ordinal = 0; ordinal < space.size(); ordinal += 997) {
+      DescriptorSpec spec = space.get(ordinal);
+      assertEquals(ordinal, space.ordinalOf(spec));
+      assertEquals(ordinal, space.ordinalOf(HeaderValidator.parse(spec.getName())));
+    }
+    assertEquals(-1, space.ordinalOf(HeaderValidator.parse("AC[9]_TIC_T_ptt")));
+  }
+
+  @Test
+  void testPlanRange() {
+    DescriptorPlan plan = space.plan(24, 27);
+    assertEquals(List.of("SIC_T_ptt", "ES_SIC_T_ptt", "MIC_SIC_T_ptt"), plan.getHeadings());
+    assertThrows(IndexOutOfBoundsException.class, () -> space.plan(0, space.size() + 1));
+  }
+}
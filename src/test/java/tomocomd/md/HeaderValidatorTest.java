@@ -0,0 +1,57 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HeaderValidatorTest {
+
+  @Test
+  void testValidate() {
+    List<String> headings =
+        Arrays.asList(
+            "TIC_T_ptt",
+            "AC[2]_N1_T_ptt",
+            "TIC_X_ptt",
+            "TIC_T_foo",
+            "CHOQUET[A;-2;AO1;0.3]_T_ptt",
+            "CHOQUET[A;0.5;AO1]_T_ptt",
+            "GOWAWA[1.5;1;AO2-OWA;1.0;0.0;1;NONE;0.0;0.0]_T_ptt",
+            "GOWAWA[0.5;x;AO2-OWA;1.0;0.0;1;NONE;0.0;0.0]_T_ptt",
+            "AC[x]_N1_T_ptt",
+            "TIC_T_ptt",
+            "CHOQUET[A;0.5;AO1;0.3]_T_ptt",
+            "CHOQUET[A;0.5;AO1;0.3]_T_ptt");
+
+    ValidationReport report = HeaderValidator.validate(headings);
+
+    assertFalse(report.isValid());
+    assertEquals(3, report.getValid().size());
+    assertEquals("TIC_T_ptt", report.getValid().get(0).getName());
+    assertEquals("CHOQUET[A;0.5;AO1;0.3]_T_ptt", report.getValid().get(2).getName());
+    assertEquals(7, report.getInvalid().size());
+    assertTrue(report.getInvalid().get("TIC_X_ptt").contains("X"));
+    assertTrue(report.getInvalid().containsKey("AC[x]_N1_T_ptt"));
+    assertEquals(
+        Arrays.asList("TIC_T_ptt", "CHOQUET[A;0.5;AO1;0.3]_T_ptt"), report.getDuplicates());
+    assertEquals(3, report.toPlan().size());
+  }
+
+  @Test
+  void testValidateLargeList() {
+    List<String> headings = new ArrayList<>(ComputeMD.generate());
+    headings.addAll(headings.subList(0, 100));
+
+    ValidationReport report = HeaderValidator.validate(headings);
+
+    assertTrue(report.isValid());
+    assertEquals(headings.size() - 100, report.getValid().size());
+    assertEquals(100, report.getDuplicates().size());
+    assertEquals(headings.get(0), report.getValid().get(0).getName());
+  }
+}
@@ -0,0 +1,82 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.biojava.nbio.core.exceptions.CompoundNotFoundException;
+import org.junit.jupiter.api.Test;
+import tomocomd.StartpepException;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.GROUPS;
+import tomocomd.model.GraphTopology;
+import tomocomd.model.Mutation;
+import tomocomd.model.Peptide;
+
+class MutationScanTest {
+
+  private static final DescriptorPlan PLAN =
+      DescriptorSpace.of(
+              Arrays.asList(GROUPS.Total, GROUPS.Apolar, GROUPS.Aromatic),
+              Arrays.asList(AMINOACID_PROPERTY.ptt, AMINOACID_PROPERTY.eps),
+              Arrays.asList(
+                  "AM",
+                  "N2",
+                  "Q1",
+                  "K",
+                  "TIC",
+                  "CHOQUET[A;-0.75;AO2;0.6]",
+                  "GOWAWA[0.9;1;AO2-OWA;1.0;0.0;1;ES2-OWA;0.9;0.0]"),
+              Arrays.asList("ES", "MIC", "AC[1]", "GV[3]", "TS[7]"))
+          .plan();
+
+  @Test
+  void testVariantsMatchFullComputation() throws CompoundNotFoundException {
+    String sequence = "GLFDIVKKVVGALCS";
+    Peptide linear = new Peptide("linear", sequence);
+    Peptide bridged =
+        new Peptide(
+            "bridged", sequence, GraphTopology.fromHeader("bridged|SS=3-14", sequence.length()));
+
+    for (Peptide parent : Arrays.asList(linear, bridged)) {
+      MutationScan scan = new MutationScan(parent, PLAN);
+      assertArrayEquals(ComputeMD.computeInBatch(parent, PLAN), scan.computeParent());
+
+      List<Mutation> mutations = new ArrayList<>(Mutation.alanineScan(sequence));
+      mutations.add(Mutation.parse("G1W"));
+      mutations.add(Mutation.parse("S15K"));
+      scan.scan(
+          mutations,
+          (mutation, row) -> {
+            Peptide variant = variant(parent, mutation);
+            assertArrayEquals(ComputeMD.computeInBatch(variant, PLAN), row, mutation.toString());
+          });
+    }
+  }
+
+  @Test
+  void testMutations() {
+    assertEquals(15 * 19, Mutation.saturation("GLFDIVKKVVGALCS").size());
+    assertEquals(new Mutation('K', 6, 'A'), Mutation.parse("K7A"));
+    assertEquals("K7A", Mutation.parse("K7A").toString());
+    assertThrows(StartpepException.class, () -> Mutation.parse("K0A"));
+    assertThrows(StartpepException.class, () -> Mutation.parse("K7"));
+  }
+
+  @Test
+  void testWildTypeMismatch() throws CompoundNotFoundException {
+    MutationScan scan = new MutationScan(new Peptide("p", "GLFD"), PLAN);
+    assertThrows(StartpepException.class, () -> scan.compute(Mutation.parse("L1A")));
+    assertThrows(StartpepException.class, () -> scan.compute(Mutation.parse("D9A")));
+  }
+
+  private static Peptide variant(Peptide parent, Mutation mutation) {
+    try {
+      return new Peptide(
+          mutation.toString(), mutation.apply(parent.getSeqPeptide()), parent.getTopology());
+    } catch (CompoundNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tomocomd.StartpepException;
+import tomocomd.io.ReadPeptideFile;
+import tomocomd.io.SaveDescriptorValue;
+import tomocomd.model.Peptide;
+import tomocomd.model.PeptideContainer;
+
+class ShardCoordinatorTest {
+
+  private static final DescriptorPlan PLAN =
+      DescriptorPlan.compile(
+          List.of(
+              "MIC_S_T_ptt",
+              "TIC_T_ptt",
+              "ES_TIC_T_ptt",
+              "AC[2]_GOWAWA[0.1;0;W-OWA;0.1;0.6;2;W-OWA;0.1;0.2]_A_z1"));
+
+  String path;
+  PeptideContainer peptides;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    path =
+        Paths.get(
+                Objects.requireNonNull(
+                    getClass().getClassLoader().getResource("peptides.fasta").toURI()))
+            .toString();
+    peptides = ReadPeptideFile.readPeptideFile(path);
+  }
+
+  @Test
+  void testShardRanges() {
+    List<Shard> byCount = Shard.byCount(peptides, 4);
+    assertEquals(4, byCount.size());
+    assertEquals(0, byCount.get(0).getFrom());
+    for (int s = 1; s < byCount.size(); s++) {
+      assertEquals(byCount.get(s - 1).getTo(), byCount.get(s).getFrom());
+    }
+    assertEquals(peptides.size(), byCount.get(3).getTo());
+    assertEquals(peptides.size(), Shard.byCount(peptides, 50).size());
+
+    List<Shard> byResidues = Shard.byResidues(peptides, 1);
+    assertEquals(peptides.size(), byResidues.size());
+    assertEquals(1, Shard.byResidues(peptides, Long.MAX_VALUE).size());
+  }
+
+  @Test
+  void testMergedOutputAndReuse(@TempDir Path dir) throws Exception {
+    Path expected = dir.resolve("expected.csv");
+    SaveDescriptorValue.save(
+        expected.toString(),
+        peptides,
+        PLAN.getHeadings(),
+        StartpepComputer.computeForSeqContainer(PLAN, peptides));
+
+    Path work = dir.resolve("work");
+    Path output = dir.resolve("sharded.csv");
+    ShardCoordinator coordinator = new ShardCoordinator(path, PLAN, work);
+    coordinator.setWorkers(2);
+    List<Shard> shards = Shard.byCount(peptides, 3);
+    coordinator.run(shards, output);
+    assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+
+    // a finished shard is not computed again
+    Path done = coordinator.shardFile(shards.get(1));
+    Files.write(done, List.of("kept"), StandardCharsets.UTF_8);
+    coordinator.run(shards, output);
+    assertTrue(Files.readAllLines(output, StandardCharsets.UTF_8).contains("kept"));
+  }
+
+  @Test
+  void testFailedShardGivesUp(@TempDir Path dir) {
+    ShardCoordinator coordinator = new ShardCoordinator(path, PLAN, dir);
+    coordinator.setJvmOptions(List.of("-XX:+NoSuchOption"));
+    coordinator.setMaxAttempts(2);
+    assertThrows(
+        StartpepException.class,
+        () -> coordinator.run(Shard.byCount(peptides, 1), dir.resolve("out.csv")));
+  }
+
+  @Test
+  void testStreamedRanges(@TempDir Path dir) throws Exception {
+    // records over several parser chunks, with a repeated header
+    List<String> lines = new ArrayList<>();
+    for (int p = 0; p < 2500; p++) {
+      lines.add(">p" + (p == 2200 ? 7 : p));
+      lines.add("GLFDIVKKVVGALGSL".substring(0, 3 + p % 13));
+    }
+    Path fasta = dir.resolve("many.fasta");
+    Files.write(fasta, lines, StandardCharsets.UTF_8);
+    List<Peptide> all = new ArrayList<>(ReadPeptideFile.readPeptideFile(fasta.toString()));
+    assertEquals(2499, all.size());
+
+    int[] lengths = ReadPeptideFile.readPeptideLengths(fasta.toString());
+    assertEquals(all.size(), lengths.length);
+    for (int p = 0; p < all.size(); p++) {
+      assertEquals(all.get(p).getLength(), lengths[p]);
+    }
+    for (int[] range : new int[][] {{0, 9}, {5, 5}, {1000, 2100}, {2000, 2499}}) {
+      List<Peptide> part = ReadPeptideFile.readPeptideFile(fasta.toString(), range[0], range[1]);
+      assertEquals(range[1] - range[0], part.size());
+      for (int p = 0; p < part.size(); p++) {
+        Peptide expected = all.get(range[0] + p);
+        assertEquals(expected.getIdPeptide(), part.get(p).getIdPeptide());
+        assertEquals(expected.getSeqPeptide(), part.get(p).getSeqPeptide());
+      }
+    }
+    assertThrows(
+        IndexOutOfBoundsException.class,
+        () -> ReadPeptideFile.readPeptideFile(fasta.toString(), 2000, 2500));
+  }
+
+  @Test
+  void testOtherInputRecomputes(@TempDir Path dir) throws Exception {
+    Path fasta = dir.resolve("input.fasta");
+    Files.copy(Paths.get(path), fasta);
+    Path work = dir.resolve("work");
+    Path output = dir.resolve("sharded.csv");
+    ShardCoordinator coordinator = new ShardCoordinator(fasta.toString(), PLAN, work);
+    List<Shard> shards = Shard.byCount(peptides, 2);
+    coordinator.run(shards, output);
+
+    // same number of peptides, other sequences
+    List<String> edited = new ArrayList<>();
+    for (String line : Files.readAllLines(fasta, StandardCharsets.UTF_8)) {
+      edited.add(line.startsWith(">") ? line : "GLFDIVKKVVGALGSL");
+    }
+    Files.write(fasta, edited, StandardCharsets.UTF_8);
+    coordinator.run(shards, output);
+
+    PeptideContainer others = ReadPeptideFile.readPeptideFile(fasta.toString());
+    Path expected = dir.resolve("expected.csv");
+    SaveDescriptorValue.save(
+        expected.toString(),
+        others,
+        PLAN.getHeadings(),
+        StartpepComputer.computeForSeqContainer(PLAN, others));
+    assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+  }
+
+  @Test
+  void testInvalidWorkers(@TempDir Path dir) {
+    assertThrows(
+        StartpepException.class,
+        () ->
+            StartpepComputer.computeSharded(
+                PLAN, path, dir.resolve("out.csv").toString(), dir, 2, 0));
+  }
+}
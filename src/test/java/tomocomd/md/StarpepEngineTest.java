@@ -0,0 +1,186 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tomocomd.StartpepException;
+import tomocomd.io.ReadPeptideFile;
+import tomocomd.md.aggregation.ElectroTopologicalState;
+import tomocomd.md.properties.LoviCache;
+import tomocomd.model.Peptide;
+import tomocomd.model.PeptideContainer;
+
+class StarpepEngineTest {
+
+  private static final DescriptorPlan PLAN = DescriptorSpace.getDefault().plan(0, 5_000);
+
+  PeptideContainer peptides;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    String path =
+        Paths.get(
+                Objects.requireNonNull(
+                    getClass().getClassLoader().getResource("peptides.fasta").toURI()))
+            .toString();
+    peptides = ReadPeptideFile.readPeptideFile(path);
+  }
+
+  @Test
+  void testConcurrentJobsOnOneEngine() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(4);
+    try (StarpepEngine engine = new StarpepEngine(2)) {
+      List<Future<RealMatrix>> jobs = new ArrayList<>();
+      for (int j = 0; j < 8; j++) {
+        jobs.add(clients.submit(() -> engine.compute(peptides, PLAN)));
+      }
+      for (Future<RealMatrix> job : jobs) {
+        RealMatrix results = job.get();
+        for (int row = 0; row < peptides.size(); row++) {
+          assertArrayEquals(ComputeMD.computeInBatch(peptides.get(row), PLAN), results.getRow(row));
+        }
+      }
+    } finally {
+      clients.shutdown();
+    }
+  }
+
+  @Test
+  void testExternalExecutorStaysOpen() {
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    List<String> headings = List.of("MIC_S_T_ptt", "TIC_T_ptt", "ES_TIC_T_ptt");
+    try {
+      StarpepEngine engine = new StarpepEngine(executor);
+      RealMatrix results = engine.compute(peptides, headings);
+      assertArrayEquals(
+          new double[] {1.1298738344298023, 151.31881626063642, 226.47733175670794},
+          results.getRow(0));
+      assertSame(engine.plan(headings), engine.plan(new ArrayList<>(headings)));
+
+      engine.close();
+      engine.close();
+      assertTrue(engine.isClosed());
+      assertFalse(executor.isShutdown());
+      assertThrows(StartpepException.class, () -> engine.compute(peptides, headings));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testPlanCacheIsBoundedBySize() {
+    try (StarpepEngine engine = new StarpepEngine(1)) {
+      List<String> first = PLAN.getHeadings();
+      DescriptorPlan plan = engine.plan(first);
+      assertSame(plan, engine.plan(first));
+
+      // every list compiles its own plan, past the bound
+      int largest = 0;
+      for (int p = 1; p <= 20; p++) {
+        engine.plan(DescriptorSpace.getDefault().plan(p * 20_000, (p + 1) * 20_000).getHeadings());
+        largest = Math.max(largest, engine.cachedDescriptors());
+        assertTrue(engine.cachedDescriptors() <= StarpepEngine.MAX_CACHED_DESCRIPTORS);
+      }
+      assertTrue(largest > StarpepEngine.MAX_CACHED_DESCRIPTORS / 2);
+      assertEquals(first, engine.plan(first).getHeadings());
+    }
+  }
+
+  @Test
+  void testProgressAndCancellation() throws Exception {
+    try (StarpepEngine engine = new StarpepEngine(2)) {
+      List<BatchProgress> reports = new ArrayList<>();
+      BatchResult done = engine.compute(peptides, PLAN, reports::add, new CancellationToken());
+      assertFalse(done.isCancelled());
+      assertEquals(peptides.size(), done.getCompletedRows());
+      BatchProgress last = reports.get(reports.size() - 1);
+      assertTrue(last.isDone());
+      assertEquals((long) peptides.size() * PLAN.size(), last.getCellsDone());
+      assertEquals(0, last.getEtaSeconds());
+
+      CancellationToken cancelled = new CancellationToken();
+      cancelled.cancel();
+      BatchResult none = engine.compute(peptides, PLAN, null, cancelled);
+      assertTrue(none.isCancelled());
+      assertEquals(0, none.getCompletedRows());
+      assertEquals(0, none.getProgress().getCellsDone());
+
+      CancellationToken token = new CancellationToken();
+      ExecutorService client = Executors.newSingleThreadExecutor();
+      try {
+        Future<BatchResult> running =
+            client.submit(() -> engine.compute(peptides, PLAN, null, token));
+        Thread.sleep(5);
+        token.cancel();
+        BatchResult partial = running.get();
+        for (int row = 0; row < peptides.size(); row++) {
+          if (partial.isRowComplete(row)) {
+            assertArrayEquals(done.getResults().getRow(row), partial.getResults().getRow(row));
+          }
+        }
+      } finally {
+        client.shutdown();
+      }
+    }
+  }
+
+  @Test
+  void testMixedLengthsKeepInputOrder() throws Exception {
+    Random random = new Random(5);
+    String residues = "ACDEFGHIKLMNPQRSTVWY";
+    List<Peptide> mixed = new ArrayList<>();
+    for (int i = 0; i < 24; i++) {
+      int length = i % 6 == 5 ? 150 + random.nextInt(150) : 3 + random.nextInt(20);
+      StringBuilder sequence = new StringBuilder();
+      for (int r = 0; r < length; r++) {
+        sequence.append(residues.charAt(random.nextInt(residues.length())));
+      }
+      mixed.add(new Peptide("p" + i, sequence.toString()));
+    }
+    DescriptorPlan plan = DescriptorSpace.getDefault().plan(0, 2_000);
+    assertTrue(
+        CostModel.getDefault().rowCost(plan, 200) > CostModel.getDefault().rowCost(plan, 20));
+
+    try (StarpepEngine engine = new StarpepEngine(3)) {
+      RealMatrix results = engine.compute(mixed, plan);
+      for (int row = 0; row < mixed.size(); row++) {
+        assertArrayEquals(ComputeMD.computeInBatch(mixed.get(row), plan), results.getRow(row));
+      }
+    }
+  }
+
+  @Test
+  void testBatchedElectroTopologicalStates() throws Exception {
+    DescriptorPlan plan =
+        DescriptorPlan.compile(
+            List.of("ES_AM_T_ptt", "ES_N2_T_eps", "ES_MX_A_ptt", "AC[2]_AM_T_ptt", "MIC_N1_T_eps"));
+    StringBuilder sequence = new StringBuilder();
+    Random random = new Random(11);
+    String residues = "ACDEFGHIKLMNPQRSTVWY";
+    while (sequence.length() < ElectroTopologicalState.FFT_THRESHOLD + 100) {
+      sequence.append(residues.charAt(random.nextInt(residues.length())));
+    }
+    Peptide chain = new Peptide("chain", sequence.toString());
+
+    // node by node, each ES through its own kernel transform
+    LoviCache lovis = new LoviCache(chain);
+    double[] expected = new double[plan.size()];
+    for (DescriptorPlan.LoviNode node : plan.getLoviNodes()) {
+      ComputeMD.computeLoviNode(lovis, plan, node, expected);
+    }
+    try (StarpepEngine engine = new StarpepEngine(2)) {
+      assertArrayEquals(expected, engine.compute(List.of(chain), plan).getRow(0));
+    }
+    assertArrayEquals(expected, ComputeMD.computeInBatch(chain, plan));
+  }
+}
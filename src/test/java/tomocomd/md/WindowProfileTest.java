@@ -0,0 +1,126 @@
+package tomocomd.md;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.biojava.nbio.core.exceptions.CompoundNotFoundException;
+import org.junit.jupiter.api.Test;
+import tomocomd.md.aggregation.RollingWindow;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.DescriptorSpec;
+import tomocomd.model.GROUPS;
+import tomocomd.model.Peptide;
+
+class WindowProfileTest {
+
+  private static final String PROTEIN =
+      "MKTLLLTLVVVTIVCLDLGYTRICFNHQSSQPQTTKTCSPGESSCYNKQWSDFRGTIIERGCGCPTVKPGIKLSCCESEVCNN";
+
+  @Test
+  void testRowsMatchFragments() throws CompoundNotFoundException {
+    List<String> aggregators =
+        new ArrayList<>(
+            Arrays.asList(
+                "TIC", "SIC", "AM", "GM", "P2", "P3", "HM", "N1", "N2", "N3", "V", "SD", "VC", "RA",
+                "Q1", "Q2", "Q3", "I50", "S", "K", "MX", "MN"));
+    aggregators.add("CHOQUET[A;-0.75;AO2;0.6]");
+    aggregators.add("GOWAWA[0.9;1;AO2-OWA;1.0;0.0;1;ES2-OWA;0.9;0.0]");
+    DescriptorPlan plan =
+        DescriptorSpace.of(
+                Arrays.asList(GROUPS.Total, GROUPS.Aromatic, GROUPS.PositivelyChargedPolar),
+                Arrays.asList(AMINOACID_PROPERTY.ptt, AMINOACID_PROPERTY.eps),
+                aggregators,
+                Arrays.asList("ES", "MIC", "AC[1]", "GV[3]", "TS[7]"))
+            .plan();
+    Peptide protein = new Peptide("protein", PROTEIN);
+
+    for (int stride : new int[] {1, 5, 25}) {
+      int width = 12;
+      RealMatrix profile = WindowProfile.compute(protein, plan, width, stride);
+      assertEquals(
+          WindowProfile.windows(PROTEIN.length(), width, stride), profile.getRowDimension());
+
+      for (int r = 0; r < profile.getRowDimension(); r++) {
+        String fragment = PROTEIN.substring(r * stride, r * stride + width);
+        double[] expected = ComputeMD.computeInBatch(new Peptide("w" + r, fragment), plan);
+        double[] actual = profile.getRow(r);
+        for (int column = 0; column < plan.size(); column++) {
+          DescriptorSpec spec = plan.get(column);
+          if (RollingWindow.isRolling(spec.getAggregator())) {
+            assertClose(expected[column], actual[column], spec.getName() + " at window " + r);
+          } else {
+            assertEquals(
+                Double.doubleToLongBits(expected[column]),
+                Double.doubleToLongBits(actual[column]),
+                spec.getName() + " at window " + r);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testWindowNarrowerThanLag() throws CompoundNotFoundException {
+    DescriptorPlan plan =
+        DescriptorPlan.compile(Arrays.asList("AC[7]_AM_T_ptt", "GV[5]_N1_T_ptt", "AM_T_ptt"));
+    String sequence = PROTEIN.substring(0, 30);
+    int width = 5;
+    RealMatrix profile = WindowProfile.compute(new Peptide("protein", sequence), plan, width, 1);
+    assertEquals(WindowProfile.windows(sequence.length(), width, 1), profile.getRowDimension());
+    for (int r = 0; r < profile.getRowDimension(); r++) {
+      double[] expected =
+          ComputeMD.computeInBatch(new Peptide("w" + r, sequence.substring(r, r + width)), plan);
+      assertArrayEquals(expected, profile.getRow(r), 1e-12);
+    }
+  }
+
+  @Test
+  void testShortProtein() throws CompoundNotFoundException {
+    DescriptorPlan plan = DescriptorPlan.compile(Arrays.asList("AM_T_ptt", "ES_MX_T_ptt"));
+    assertEquals(0, WindowProfile.compute(new Peptide("p", "GLF"), plan, 5, 1).getRowDimension());
+  }
+
+  /** Every group and property, centred scales (hwhh, z1, z2) among them, on a longer protein. */
+  @Test
+  void testRollingOperatorsOnAllProperties() throws CompoundNotFoundException {
+    List<String> aggregators =
+        Arrays.asList(
+            "TIC", "SIC", "AM", "GM", "P2", "P3", "HM", "N1", "N2", "N3", "V", "SD", "VC", "MX",
+            "MN", "RA");
+    DescriptorPlan plan =
+        DescriptorSpace.of(
+                Arrays.asList(GROUPS.values()),
+                Arrays.asList(AMINOACID_PROPERTY.values()),
+                aggregators,
+                Arrays.asList("AC[1]", "GV[3]", "TS[7]"))
+            .plan();
+    StringBuilder sequence = new StringBuilder();
+    while (sequence.length() < 400) {
+      sequence.append(PROTEIN);
+    }
+    String protein = sequence.substring(0, 400);
+    int width = 20;
+    RealMatrix profile = WindowProfile.compute(new Peptide("protein", protein), plan, width, 3);
+    for (int r = 0; r < profile.getRowDimension(); r++) {
+      double[] expected =
+          ComputeMD.computeInBatch(
+              new Peptide("w" + r, protein.substring(3 * r, 3 * r + width)), plan);
+      double[] actual = profile.getRow(r);
+      for (int column = 0; column < plan.size(); column++) {
+        assertClose(expected[column], actual[column], plan.get(column).getName() + " at " + r);
+      }
+    }
+  }
+
+  /** Equal within a relative {@code 1e-9}, and bit for bit when zero or not finite. */
+  private static void assertClose(double expected, double actual, String message) {
+    if (expected == 0 || !Double.isFinite(expected)) {
+      assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual), message);
+    } else {
+      assertEquals(expected, actual, 1e-9 * Math.abs(expected), message);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tomocomd.model.ChoquetParameters;
+
+/** Values pinned from the original per-configuration {@code choquetIntegral}. */
+class ChoquetTest {
+
+  /** Both directions, lambda = -1, in (-1, 0] and > 0, both singleton methods. */
+  private static final List<String> HEADINGS = new ArrayList<>();
+
+  static {
+    for (String sort : new String[] {"A", "D"}) {
+      for (String lambda : new String[] {"-1.0", "-0.5", "0.0", "0.5"}) {
+        for (String method : new String[] {"AO1", "AO2"}) {
+          HEADINGS.add("CHOQUET[" + sort + ";" + lambda + ";" + method + ";0.6]");
+        }
+      }
+    }
+  }
+
+  private static final double[] SHORT = {1.0, 2.0, 3.0};
+  private static final double[] TIES = {0.5, 3.25, 1.75, 0.5, 2.0, 4.5, 1.0};
+  private static final double[] ZEROS = {0.0, 0.0, 0.0, 0.0};
+  private static final double[] NEGATIVE = {1.0, -0.5, 2.0};
+  private static final double[] AFTER_LONG = {2.0, 0.25, 1.5};
+
+  private static final double[] EXPECTED_SHORT = {
+    1.8690609581255886, 2.2049978814687217, 2.130009266439497, 2.602498940734361,
+    2.2097557455078216, 2.602498940734361, 2.352027665344452, 2.602498940734361,
+    2.4345304790627944, 2.602498940734361, 2.2778417667380326, 2.602498940734361,
+    2.2097557455078216, 2.602498940734361, 2.0384706139512008, 2.4530486284373785
+  };
+  private static final double[] EXPECTED_TIES = {
+    1.5138106746825633, 1.7278244266294516, 2.274600003605216, 2.44448319183746,
+    2.552048536121169, 2.744773085304905, 2.8013129868258826, 3.0076819017723437,
+    3.8976620460827265, 3.9465083160558327, 2.9214835439048104, 3.12148395082707,
+    2.552048536121169, 2.7447730853049053, 1.8777931290190173, 2.03357527371104
+  };
+  private static final double[] EXPECTED_ZEROS = {
+    0.0, 0.0, 0.0, 0.0, 0.0, 0.0, Double.NaN, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, Double.NaN, 0.0
+  };
+  private static final double[] EXPECTED_LONG = {
+    0.22066782655437794, 0.23314542127942461, 1.6476817655688145, 1.4953476842590097,
+    1.9638937360312112, 1.8787150511885615, 2.2174122009563826, 2.2213641788596217,
+    3.027815464727408, 3.0306045640894514, 2.255645095164941, 2.2205047232806967,
+    1.9638937360312143, 1.8787150511885604, 1.5966232629620958, 1.487440944252769
+  };
+  private static final double[] EXPECTED_AFTER_LONG = {
+    1.0721208004951652, 0.9496584786534694, 1.496448838012467, 1.1535691508471577,
+    1.5662543695811826, 1.2793745134472483, 1.6947989076429941, 1.488180461631575,
+    1.6337092846624426, 1.447585677057317, 1.5878148222524815, 1.3274180949707604,
+    1.5662543695811826, 1.2793745134472483, 1.4815184260401977, 1.1936622329925652
+  };
+
+  private static double[] longVector() {
+    double[] lovis = new double[40];
+    for (int i = 0; i < lovis.length; i++) {
+      lovis[i] = 0.1 + 0.3 * ((i * 37) % 11);
+    }
+    return lovis;
+  }
+
+  private static List<ChoquetParameters> parameters() {
+    List<ChoquetParameters> parameters = new ArrayList<>();
+    for (String heading : HEADINGS) {
+      parameters.add(ChoquetParameters.parse(heading));
+    }
+    return parameters;
+  }
+
+  private static void assertBits(double[] expected, double[] lovis) {
+    for (int c = 0; c < HEADINGS.size(); c++) {
+      assertEquals(
+          Double.doubleToLongBits(expected[c]),
+          Double.doubleToLongBits(Choquet.validateAndCompute(lovis, HEADINGS.get(c))),
+          HEADINGS.get(c));
+    }
+    double[] batch = Choquet.computeAll(lovis, parameters());
+    for (int c = 0; c < HEADINGS.size(); c++) {
+      assertEquals(
+          Double.doubleToLongBits(expected[c]), Double.doubleToLongBits(batch[c]), HEADINGS.get(c));
+    }
+  }
+
+  @Test
+  void testBaselineValues() {
+    assertBits(EXPECTED_SHORT, SHORT);
+    assertBits(EXPECTED_TIES, TIES);
+    assertBits(EXPECTED_ZEROS, ZEROS);
+    double[] nan = new double[HEADINGS.size()];
+    Arrays.fill(nan, Double.NaN);
+    assertBits(nan, NEGATIVE);
+  }
+
+  /** The measures of a thread are reused, so a short vector must not see a longer one's. */
+  @Test
+  void testShortVectorAfterLongOne() {
+    assertBits(EXPECTED_LONG, longVector());
+    assertBits(EXPECTED_AFTER_LONG, AFTER_LONG);
+  }
+}
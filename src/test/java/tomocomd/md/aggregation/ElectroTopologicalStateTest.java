@@ -0,0 +1,47 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import tomocomd.model.GraphTopology;
+import tomocomd.model.LinearTopology;
+
+class ElectroTopologicalStateTest {
+
+  @Test
+  void testChainMatchesPairFormula() {
+    double[] lovis = {1.0, -2.5, 3.25, 0.0, 5.0, 7.75};
+    double[] expected = new double[lovis.length];
+    for (int i = 0; i < lovis.length; i++) {
+      double sum = 0;
+      for (int j = 0; j < lovis.length; j++) {
+        sum = sum + (lovis[i] - lovis[j]) / Math.pow(Math.abs(i - j) + 1, 2);
+      }
+      expected[i] = lovis[i] + sum;
+    }
+
+    assertArrayEquals(
+        expected, ElectroTopologicalState.compute(lovis, new LinearTopology(lovis.length)));
+    assertArrayEquals(
+        expected,
+        ElectroTopologicalState.compute(lovis, new GraphTopology(lovis.length, new int[0])));
+  }
+
+  @Test
+  void testLongChainConvolution() {
+    int n = ElectroTopologicalState.FFT_THRESHOLD + 10;
+    Random random = new Random(3);
+    double[] lovis = new double[n];
+    for (int i = 0; i < n; i++) {
+      lovis[i] = random.nextDouble() * 10 - 5;
+    }
+
+    double[] fft = ElectroTopologicalState.compute(lovis, new LinearTopology(n));
+    double[] direct = ElectroTopologicalState.compute(lovis, new GraphTopology(n, new int[0]));
+    for (int i = 0; i < n; i += 97) {
+      assertEquals(direct[i], fft[i], 1e-9);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class EntropyTest {
+
+  @Test
+  void testClassSizes() {
+    double[] a = {2.5, 0.0, Double.NaN, -0.0, 2.5, Double.NaN, 1.0, 2.5};
+    int[] sizes = new int[a.length];
+
+    int classes = Entropy.classSizes(a, sizes);
+
+    assertEquals(5, classes);
+    assertArrayEquals(new int[] {3, 2, 1, 1, 1}, Arrays.copyOf(sizes, classes));
+  }
+
+  @Test
+  void testInformation() {
+    double[] a = {1.0, 1.0, 2.0, 3.0, 3.0, 3.0};
+    double n = a.length;
+    double expected =
+        n * (Math.log10(n) / Math.log10(2.0))
+            - (2 * (Math.log10(2) / Math.log10(2.0)) + 3 * (Math.log10(3) / Math.log10(2.0)));
+
+    assertEquals(expected, Entropy.totalInformation(a));
+    assertEquals(3, Entropy.meanInformation(a).length);
+    assertEquals(0, Entropy.totalInformation(new double[] {4.0, 4.0}));
+  }
+}
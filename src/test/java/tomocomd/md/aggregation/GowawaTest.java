@@ -0,0 +1,92 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import tomocomd.model.GowawaParameters;
+
+class GowawaTest {
+
+  /** Linear (lambda = delta = 1) and general configurations, with data-dependent AO weights. */
+  private static final String[] HEADINGS = {
+    "GOWAWA[0.5;1;AO1-OWA;0.6;0.0;1;S-OWA;0.9;0.0]",
+    "GOWAWA[0.9;1;AO2-OWA;1.0;0.0;1;ES2-OWA;0.9;0.0]",
+    "GOWAWA[0.7;1;S-OWA;0.8;0.2;1;ES2-OWA;0.9;0.0]",
+    "GOWAWA[0.5;1;ES1-OWA;0.7;0.0;1;W-OWA;0.3;0.4]",
+    "GOWAWA[0.1;0;AO1-OWA;1.0;0.0;2;S-OWA;0.8;0.1]",
+    "GOWAWA[0.3;2;AO2-OWA;0.6;0.0;2;ES1-OWA;0.7;0.0]",
+    "GOWAWA[0.1;0;W-OWA;0.1;0.6;2;W-OWA;0.1;0.2]",
+    "GOWAWA[0.7;2;ES2-OWA;0.9;0.0;0;S-OWA;0.0;1.0]"
+  };
+
+  private static final double[] ALL_NAN = {
+    Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+    Double.NaN, Double.NaN, Double.NaN, Double.NaN
+  };
+
+  /** Values of the original implementation, which sorted each vector once per configuration. */
+  @Test
+  void testBaselineValues() {
+    assertBits(
+        new double[] {
+          0.7978044622242385, 0.4907199586956522, 1.21281205, 1.631125,
+          0.5046655245475362, 0.809290064434359, 0.0, 1.2855704308295608
+        },
+        new double[] {0.0, 1.5, -0.0, 2.0, 0.0, -0.0, 0.75});
+    assertBits(ALL_NAN, new double[] {1.0, Double.NaN, 2.5, 0.5, Double.NaN, 3.0});
+    assertBits(ALL_NAN, new double[] {-0.0, Double.NaN, 0.0, 1.0});
+    assertBits(
+        new double[] {
+          1.9877270856014935, 2.352539, 2.3976170000000003, 2.0959499999999993,
+          1.99318074835795, 2.0145927413051252, 2.0289428541621963, 2.3684457865594863
+        },
+        new double[] {2.0, 1.0, 2.0, 3.0, 1.0, 2.0});
+    assertBits(
+        new double[] {
+          1.4457505705699518, 2.7120994482758616, 2.6349879999999994, 2.2292699999999996,
+          1.5912349589866324, 1.607608440031901, 0.5184382709787415, 3.6241501268717466
+        },
+        new double[] {0.3, 1.7, 2.2, 0.9, 4.1});
+  }
+
+  /** Each configuration alone, and all of them on one shared sort. */
+  private static void assertBits(double[] expected, double[] lovis) {
+    List<GowawaParameters> parameters = new ArrayList<>();
+    for (int c = 0; c < HEADINGS.length; c++) {
+      parameters.add(GowawaParameters.parse(HEADINGS[c]));
+      assertEquals(
+          Double.doubleToLongBits(expected[c]),
+          Double.doubleToLongBits(Gowawa.validateAndCompute(lovis, HEADINGS[c])),
+          HEADINGS[c]);
+    }
+    double[] batch = Gowawa.computeAll(lovis, parameters);
+    for (int c = 0; c < HEADINGS.length; c++) {
+      assertEquals(
+          Double.doubleToLongBits(expected[c]), Double.doubleToLongBits(batch[c]), HEADINGS[c]);
+    }
+  }
+
+  @Test
+  void testWeightCacheIsBounded() {
+    double[] lovis = new Random(3).doubles(1000, 0.1, 5).toArray();
+    GowawaParameters first = GowawaParameters.parse("GOWAWA[0.5;1;S-OWA;0.0;0.0;1;S-OWA;0.0;0.0]");
+    double expected = Gowawa.compute(lovis, first);
+
+    // every configuration caches its own weights, past the bound
+    int largest = 0;
+    for (int c = 1; c <= 3000; c++) {
+      double alfa = c / 4000.0;
+      Gowawa.compute(
+          lovis,
+          GowawaParameters.parse("GOWAWA[0.5;1;S-OWA;" + alfa + ";0.0;1;S-OWA;" + alfa + ";0.0]"));
+      largest = Math.max(largest, Gowawa.cachedValues());
+      assertTrue(Gowawa.cachedValues() <= Gowawa.MAX_CACHED_VALUES);
+    }
+    assertTrue(largest > Gowawa.MAX_CACHED_VALUES / 2);
+    assertEquals(
+        Double.doubleToLongBits(expected), Double.doubleToLongBits(Gowawa.compute(lovis, first)));
+  }
+}
@@ -0,0 +1,32 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import tomocomd.model.CLASSIC_OPERATORS;
+import tomocomd.model.GraphTopology;
+import tomocomd.model.LinearTopology;
+
+class LagKernelTest {
+
+  @Test
+  void testChainAndGraphAgree() {
+    double[] lovis = {1.0, 2.0, 3.0, 4.0, 5.0};
+    LagKernel chain = LagKernel.compute(lovis, new LinearTopology(5), 1, 7);
+    LagKernel graph = LagKernel.compute(lovis, new GraphTopology(5, new int[0]), 1, 7);
+
+    assertArrayEquals(new double[] {3.0, 8.0, 15.0}, chain.get(CLASSIC_OPERATORS.AC, 2));
+    assertArrayEquals(new double[] {1.5, 4.0, 7.5}, chain.get(CLASSIC_OPERATORS.GV, 2));
+    assertArrayEquals(new double[] {6.0}, chain.get(CLASSIC_OPERATORS.TS, 4));
+    assertEquals(0, chain.get(CLASSIC_OPERATORS.AC, 7).length);
+    for (CLASSIC_OPERATORS operator :
+        new CLASSIC_OPERATORS[] {
+          CLASSIC_OPERATORS.AC, CLASSIC_OPERATORS.GV, CLASSIC_OPERATORS.TS
+        }) {
+      for (int k = 1; k <= 7; k++) {
+        assertArrayEquals(chain.get(operator, k), graph.get(operator, k));
+      }
+    }
+  }
+}
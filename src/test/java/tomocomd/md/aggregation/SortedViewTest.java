@@ -0,0 +1,50 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SortedViewTest {
+
+  @Test
+  void testOrderMatchesArraysSort() {
+    Random random = new Random(11);
+    double[] pool = {0.0, -0.0, 1.5, 2.0, Double.NaN, 0.25};
+    for (int n : new int[] {0, 1, 5, 32, 33, 200}) {
+      double[] values = new double[n];
+      for (int i = 0; i < n; i++) {
+        values[i] = random.nextBoolean() ? pool[random.nextInt(pool.length)] : random.nextDouble();
+      }
+      double[] expected = values.clone();
+      Arrays.sort(expected);
+
+      SortedView view = SortedView.of(values);
+
+      assertArrayEquals(expected, view.ascending());
+      int[] permutation = view.permutation();
+      for (int k = 0; k < n; k++) {
+        assertEquals(
+            Double.doubleToLongBits(values[permutation[k]]),
+            Double.doubleToLongBits(view.ascending()[k]));
+        if (k > 0 && Double.compare(view.ascending()[k - 1], view.ascending()[k]) == 0) {
+          assertTrue(permutation[k - 1] < permutation[k], "equal values keep their order");
+        }
+      }
+    }
+  }
+
+  @Test
+  void testDescendingAndFlags() {
+    SortedView view = SortedView.of(new double[] {3.0, Double.NaN, -1.0, 2.0});
+
+    assertArrayEquals(new double[] {Double.NaN, 3.0, 2.0, -1.0}, view.descending());
+    assertEquals(1, view.getNaNCount());
+    assertTrue(view.hasNegative());
+    assertFalse(SortedView.of(new double[] {-0.0, 1.0}).hasNegative());
+  }
+}
@@ -0,0 +1,57 @@
+package tomocomd.md.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.stat.descriptive.moment.Kurtosis;
+import org.apache.commons.math3.stat.descriptive.moment.Skewness;
+import org.junit.jupiter.api.Test;
+import tomocomd.model.AGGREGATOR_OPERATORS;
+
+class VectorSummaryTest {
+
+  private static final double[] SAMPLES = {-2.5, -0.0, 0.0, 0.5, 1.0, 3.75, -1.25, 7.0};
+
+  @Test
+  void testMatchesCommonsMath() {
+    Random random = new Random(11);
+    for (int trial = 0; trial < 2000; trial++) {
+      double[] v = new double[random.nextInt(12)];
+      for (int i = 0; i < v.length; i++) {
+        v[i] =
+            random.nextBoolean()
+                ? SAMPLES[random.nextInt(SAMPLES.length)]
+                : random.nextGaussian() * 10;
+      }
+      VectorSummary summary = new VectorSummary(v);
+      DescriptiveStatistics stats = new DescriptiveStatistics(v);
+      double mean = Arrays.stream(v).average().orElse(Double.NaN);
+
+      assertSame(stats.getVariance(), summary.get(AGGREGATOR_OPERATORS.V), v);
+      assertSame(Math.sqrt(stats.getVariance()) / mean, summary.get(AGGREGATOR_OPERATORS.VC), v);
+      assertSame(stats.getPercentile(25), summary.get(AGGREGATOR_OPERATORS.Q1), v);
+      assertSame(stats.getPercentile(50), summary.get(AGGREGATOR_OPERATORS.Q2), v);
+      assertSame(stats.getPercentile(75), summary.get(AGGREGATOR_OPERATORS.Q3), v);
+      assertSame(new Skewness().evaluate(v), summary.get(AGGREGATOR_OPERATORS.S), v);
+      assertSame(new Kurtosis().evaluate(v), summary.get(AGGREGATOR_OPERATORS.K), v);
+      assertSame(StatUtils.geometricMean(v), summary.get(AGGREGATOR_OPERATORS.GM), v);
+      assertSame(new ArrayRealVector(v).getNorm(), summary.get(AGGREGATOR_OPERATORS.N2), v);
+      assertSame(new ArrayRealVector(v).getL1Norm(), summary.get(AGGREGATOR_OPERATORS.N1), v);
+      assertSame(
+          Arrays.stream(v).max().orElse(Double.NaN), summary.get(AGGREGATOR_OPERATORS.MX), v);
+      assertSame(
+          Arrays.stream(v).min().orElse(Double.NaN), summary.get(AGGREGATOR_OPERATORS.MN), v);
+    }
+  }
+
+  private static void assertSame(double expected, double actual, double[] v) {
+    assertEquals(
+        Double.doubleToLongBits(expected),
+        Double.doubleToLongBits(actual),
+        () -> Arrays.toString(v) + ": expected " + expected + " but was " + actual);
+  }
+}
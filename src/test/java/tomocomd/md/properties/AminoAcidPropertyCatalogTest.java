@@ -0,0 +1,41 @@
+package tomocomd.md.properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import tomocomd.StartpepException;
+import tomocomd.model.AMINOACID_PROPERTY;
+import tomocomd.model.GROUPS;
+
+class AminoAcidPropertyCatalogTest {
+
+  @Test
+  void testDefaultCatalog() {
+    AminoAcidPropertyCatalog catalog = AminoAcidPropertyCatalog.getDefault();
+    assertEquals(71.0788, catalog.getValue('A', AMINOACID_PROPERTY.mw));
+    assertEquals(-77.85, catalog.getValue('A', AMINOACID_PROPERTY.gcp2));
+    assertEquals(0d, catalog.getValue('X', AMINOACID_PROPERTY.mw));
+    assertArrayEquals(
+        new double[] {0.0, 0.76, 0.0, 0.0},
+        catalog.getAminoacidPropertyValues("ANXK", AMINOACID_PROPERTY.pbs, GROUPS.UnchargedPolar));
+  }
+
+  @Test
+  void testCustomScale() throws IOException {
+    String scale = "3code,1code,mw,unknown\nALA,A,1.5,7\nLYS,K,2.5,8\n";
+    AminoAcidPropertyCatalog catalog =
+        AminoAcidPropertyCatalog.load(
+            new ByteArrayInputStream(scale.getBytes(StandardCharsets.UTF_8)));
+    assertTrue(catalog.isDefined(AMINOACID_PROPERTY.mw));
+    assertFalse(catalog.isDefined(AMINOACID_PROPERTY.ptt));
+    assertArrayEquals(
+        new double[] {1.5, 2.5, 0.0},
+        catalog.getAminoacidPropertyValues("AKG", AMINOACID_PROPERTY.mw, GROUPS.Total));
+    assertThrows(
+        StartpepException.class,
+        () -> catalog.getAminoacidPropertyValues("AKG", AMINOACID_PROPERTY.ptt, GROUPS.Total));
+  }
+}
@@ -0,0 +1,71 @@
+package tomocomd.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tomocomd.StartpepException;
+import tomocomd.io.ReadPeptideFile;
+
+class GraphTopologyTest {
+
+  @Test
+  void testLinearChainMatchesLinearTopology() {
+    PeptideTopology graph = new GraphTopology(6, new int[0]);
+    PeptideTopology linear = new LinearTopology(6);
+    for (int i = 0; i < 6; i++) {
+      for (int j = 0; j < 6; j++) {
+        assertEquals(linear.distance(i, j), graph.distance(i, j));
+      }
+    }
+    for (int k = 0; k < 8; k++) {
+      assertArrayEquals(linear.pairsAtDistance(k), graph.pairsAtDistance(k));
+    }
+  }
+
+  @Test
+  void testCyclicAndDisulfide() {
+    PeptideTopology cyclic = GraphTopology.fromHeader("pep1 topology=cyclic", 6);
+    assertEquals(1, cyclic.distance(0, 5));
+    assertEquals(3, cyclic.distance(1, 4));
+    assertArrayEquals(new int[] {0, 3, 1, 4, 2, 5}, cyclic.pairsAtDistance(3));
+
+    PeptideTopology bridged = GraphTopology.fromHeader("pep2|SS=2-6", 8);
+    assertEquals(1, bridged.distance(1, 5));
+    assertEquals(4, bridged.distance(0, 7));
+    assertArrayEquals(
+        new int[] {0, 2, 0, 5, 1, 3, 1, 4, 1, 6, 2, 4, 2, 5, 3, 5, 4, 6, 5, 7},
+        bridged.pairsAtDistance(2));
+
+    assertInstanceOf(LinearTopology.class, GraphTopology.fromHeader("Sequence_0_APP", 8));
+    // a bare word is not an annotation
+    assertInstanceOf(LinearTopology.class, GraphTopology.fromHeader("Cyclic|peptide", 8));
+    assertThrows(StartpepException.class, () -> GraphTopology.fromHeader("p topology=x", 8));
+    assertThrows(StartpepException.class, () -> GraphTopology.fromHeader("p SS=2-9", 8));
+  }
+
+  @Test
+  void testReaderAnnotationsAreOptIn() throws Exception {
+    byte[] fasta =
+        ">ring topology=cyclic\nGLFDIV\n>broken|SS=2-9\nKWKLFKKI\n"
+            .getBytes(StandardCharsets.UTF_8);
+    List<Peptide> plain =
+        new ArrayList<>(ReadPeptideFile.readPeptideFile(new ByteArrayInputStream(fasta)));
+    assertInstanceOf(LinearTopology.class, plain.get(0).getTopology());
+    assertInstanceOf(LinearTopology.class, plain.get(1).getTopology());
+
+    byte[] ring = ">ring topology=cyclic\nGLFDIV\n".getBytes(StandardCharsets.UTF_8);
+    Peptide annotated =
+        ReadPeptideFile.readPeptideFile(new ByteArrayInputStream(ring), true).iterator().next();
+    assertEquals(1, annotated.getTopology().distance(0, 5));
+    assertThrows(
+        StartpepException.class,
+        () -> ReadPeptideFile.readPeptideFile(new ByteArrayInputStream(fasta), true));
+  }
+}